@@ -6,8 +6,12 @@ package Controllers;
 
 import Classes.Appointment;
 import Classes.AppointmentCalendar;
-import javafx.collections.FXCollections;
+import Helper.DataAccessException;
+import Helper.Exporter;
+import Helper.QueryExecutor;
+import javafx.application.Platform;
 import javafx.collections.ObservableList;
+import javafx.collections.transformation.SortedList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
@@ -15,10 +19,13 @@ import javafx.scene.Parent;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.BorderPane;
+import javafx.stage.FileChooser;
 
+import java.io.File;
+import java.io.IOException;
 import java.net.URL;
 import java.time.LocalDate;
-import java.time.Month;
+import java.time.LocalDateTime;
 import java.util.Optional;
 import java.util.ResourceBundle;
 
@@ -45,19 +52,21 @@ public class AllAppointmentsController implements Initializable {
     public RadioButton radioWeek;
     public ToggleGroup toggleAppointments;
 
-    private ObservableList<Classes.Appointment> displayAppointments = FXCollections.observableArrayList();
     private AppointmentCalendar appointmentCalendar = null;
+    // Window shown, both null when showing all Appointments
+    private LocalDateTime viewFrom = null;
+    private LocalDateTime viewTo = null;
 
     /**
      * Initializes the All Appointments Form.
-     * Appointments are fetched from the database by a new Appointment Calendar. Table View is initialized.
+     * Appointments are read from the shared Appointment Store by one Appointment Calendar, kept for every view.
+     * The store is normally loaded at login, so opening the form does not query the database. Table View is initialized.
      * */
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle){
         appointmentCalendar = new AppointmentCalendar();
 
-        displayAppointments = appointmentCalendar.getAllAppointments();
-        tableAppointments.setItems(displayAppointments);
+        showAppointments(appointmentCalendar.getAllAppointments());
 
         colId.setCellValueFactory(new PropertyValueFactory<>("id"));
         colTitle.setCellValueFactory(new PropertyValueFactory<>("title"));
@@ -87,6 +96,7 @@ public class AllAppointmentsController implements Initializable {
      * */
     public void toAddAppointment(ActionEvent actionEvent) {
         try {
+            QueryExecutor.newScreenScope("Appointment");
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/Forms/Appointment.fxml"));
             Parent root = loader.load();
 
@@ -113,6 +123,7 @@ public class AllAppointmentsController implements Initializable {
         if (selectedAppointment == null) return;
 
         try {
+            QueryExecutor.newScreenScope("Appointment");
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/Forms/Appointment.fxml"));
             Parent root = loader.load();
 
@@ -146,14 +157,14 @@ public class AllAppointmentsController implements Initializable {
 
         Optional<ButtonType> result = alert.showAndWait();
         if (result.get() == ButtonType.OK) {
-            if (appointmentCalendar.deleteAppointment(selectedAppointment)) {
-                if (toggleAppointments.getSelectedToggle() == radioAll){
-                    viewAll(actionEvent);
-                } else if (toggleAppointments.getSelectedToggle() == radioMonth){
-                    viewMonth(actionEvent);
-                } else if (toggleAppointments.getSelectedToggle() == radioWeek){
-                    viewWeek(actionEvent);
-                }
+            boolean deleted;
+            try {
+                deleted = appointmentCalendar.deleteAppointment(selectedAppointment);
+            } catch (DataAccessException e){
+                deleted = false;
+            }
+            if (deleted) {
+                refreshView();
             } else {
                 alert = new Alert(Alert.AlertType.ERROR);
                 alert.setTitle("Could not perform action.");
@@ -163,47 +174,117 @@ public class AllAppointmentsController implements Initializable {
         }
     }
 
+    /**
+     * Exports every Appointment in the database to a CSV or JSON lines file chosen by the user.
+     * Appointments are streamed from the database on a background thread, so the form stays responsive
+     * however many there are. A file name ending in .jsonl is written as JSON lines, any other as CSV.
+     * Triggered by the 'Export All' button.
+     * */
+    public void onExport(ActionEvent actionEvent) {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Export Appointments");
+        chooser.setInitialFileName("appointments.csv");
+        chooser.getExtensionFilters().addAll(new FileChooser.ExtensionFilter("CSV", "*.csv"),
+                new FileChooser.ExtensionFilter("JSON lines", "*.jsonl"));
+        File file = chooser.showSaveDialog(tableAppointments.getScene().getWindow());
+        if (file == null) return;
+
+        Thread export = new Thread(() -> {
+            try {
+                long count = Exporter.exportAppointments(file, Exporter.Format.of(file));
+                Platform.runLater(() -> {
+                    Alert alert = new Alert(Alert.AlertType.INFORMATION);
+                    alert.setTitle("Export Appointments");
+                    alert.setContentText("Exported " + count + " Appointments to " + file.getName() + ".");
+                    alert.show();
+                });
+            } catch (IOException | DataAccessException e){
+//                e.printStackTrace();
+                Platform.runLater(() -> {
+                    Alert alert = new Alert(Alert.AlertType.ERROR);
+                    alert.setTitle("Could not perform action.");
+                    alert.setContentText("Could not export Appointments to " + file.getName() + ". Please check connection to database and the file.");
+                    alert.show();
+                });
+            }
+        }, "Export");
+        export.setDaemon(true);
+        export.start();
+    }
+
     /**
      * Displays all Appointments in the database.
      * Triggered by the 'All Appointments'(radioAll) radio button.
      * */
     public void viewAll(ActionEvent actionEvent) {
-        displayAppointments = appointmentCalendar.getAllAppointments();
-        tableAppointments.setItems(displayAppointments);
+        viewWindow(null, null);
     }
 
     /**
      * Displays Appointments in the database scheduled this month.
+     * Only the days of this month are read from the Appointment Calendar's day index.
      * Triggered by the 'Appointments this Month'(radioMonth) radio button.
      * */
     public void viewMonth(ActionEvent actionEvent) {
-        displayAppointments.clear();
-
-        ObservableList<Appointment> allAppointments = appointmentCalendar.getAllAppointments();
-        Month thisMonth = LocalDate.now().getMonth();
-        allAppointments.stream().filter(n -> n.getStartDateTimeLocal().getMonth() == thisMonth)
-                                .forEach(n -> displayAppointments.add(n));
+        LocalDateTime firstOfMonth = LocalDate.now().withDayOfMonth(1).atStartOfDay();
+        viewWindow(firstOfMonth, firstOfMonth.plusMonths(1));
     }
 
     /**
      * Displays Appointments in the database scheduled this week.
      * Week is defined as Monday through Sunday.
+     * Only the days of this week are read from the Appointment Calendar's day index.
      * Triggered by the 'Appointments this Week'(radioWeek) radio button.
      * */
     public void viewWeek(ActionEvent actionEvent) {
-        displayAppointments.clear();
         int dayOfWeek = LocalDate.now().getDayOfWeek().getValue();
-        LocalDate monday = LocalDate.now().minusDays(dayOfWeek - 1);
-        LocalDate sunday = monday.plusDays(6);
-
-        for (Appointment appointment : appointmentCalendar.getAllAppointments()){
-            LocalDate meetingStartDate = appointment.getStartDateTimeLocal().toLocalDate();
-            LocalDate meetingEndDate = appointment.getEndDateTimeLocal().toLocalDate();
-            if (meetingStartDate.compareTo(monday) * meetingStartDate.compareTo(sunday) <= 0){
-                displayAppointments.add(appointment);
-            } else if (meetingEndDate.compareTo(monday) * meetingEndDate.compareTo(sunday) <= 0){
-                displayAppointments.add(appointment);
-            }
+        LocalDateTime monday = LocalDate.now().minusDays(dayOfWeek - 1).atStartOfDay();
+        viewWindow(monday, monday.plusDays(7));
+    }
+
+    /**
+     * Displays Appointments overlapping a window of time.
+     * The shared Appointment Store is loaded from the database only if it is not loaded yet,
+     * a window reads only its own days from the store.
+     * @param from start of the window in the system default zone, null for all Appointments
+     * @param to end of the window in the system default zone, null for all Appointments
+     * */
+    private void viewWindow(LocalDateTime from, LocalDateTime to) {
+        viewFrom = from;
+        viewTo = to;
+        try {
+            refreshView();
+        } catch (DataAccessException e){
+            showLoadError();
+        }
+    }
+
+    /**
+     * Displays the Appointments in the window shown.
+     * */
+    private void refreshView() {
+        if (viewFrom == null) {
+            showAppointments(appointmentCalendar.getAllAppointments());
+        } else {
+            showAppointments(appointmentCalendar.getAppointments(viewFrom, viewTo));
         }
     }
+
+    private void showLoadError() {
+        Alert alert = new Alert(Alert.AlertType.ERROR);
+        alert.setTitle("Could not perform action.");
+        alert.setContentText("Could not load Appointments. Please check connection to database and restart program.");
+        alert.showAndWait();
+    }
+
+    /**
+     * Displays Appointments in the table without copying them.
+     * The table sorts a view of the Appointments, the unmodifiable snapshot itself is not sorted.
+     * @param appointments the Appointments to display
+     * */
+    private void showAppointments(ObservableList<Appointment> appointments){
+        SortedList<Appointment> sorted = new SortedList<>(appointments);
+        sorted.comparatorProperty().bind(tableAppointments.comparatorProperty());
+        tableAppointments.setItems(sorted);
+    }
 }
@@ -6,8 +6,10 @@ package Controllers;
 
 import Classes.Customer;
 import Classes.Directory;
+import Helper.QueryExecutor;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.collections.transformation.SortedList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
@@ -50,8 +52,7 @@ public class AllCustomersController implements Initializable {
     public void initialize(URL url, ResourceBundle resourceBundle){
         directory = new Directory();
 
-        displayCustomers = directory.getAllCustomers();
-        tableCustomers.setItems(displayCustomers);
+        showCustomers(directory.getAllCustomers());
 
         colId.setCellValueFactory(new PropertyValueFactory<>("id"));
         colName.setCellValueFactory(new PropertyValueFactory<>("name"));
@@ -76,6 +77,7 @@ public class AllCustomersController implements Initializable {
      * */
     public void toAddCustomer(ActionEvent actionEvent) {
         try {
+            QueryExecutor.newScreenScope("Customer");
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/Forms/Customer.fxml"));
             Parent root = loader.load();
 
@@ -102,6 +104,7 @@ public class AllCustomersController implements Initializable {
         if (selectedCustomer == null) return;
 
         try {
+            QueryExecutor.newScreenScope("Customer");
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/Forms/Customer.fxml"));
             Parent root = loader.load();
 
@@ -137,8 +140,7 @@ public class AllCustomersController implements Initializable {
         Optional<ButtonType> result = alert.showAndWait();
         if (result.get() == ButtonType.OK) {
             if (directory.deleteCustomer(selectedCustomer)){
-                displayCustomers = directory.getAllCustomers();
-                tableCustomers.setItems(displayCustomers);
+                showCustomers(directory.getAllCustomers());
             } else {
                 alert = new Alert(Alert.AlertType.ERROR);
                 alert.setTitle("Could not perform action.");
@@ -147,4 +149,16 @@ public class AllCustomersController implements Initializable {
             }
         }
     }
+
+    /**
+     * Displays Customers in the table without copying them.
+     * The table sorts a view of the Customers, the unmodifiable snapshot itself is not sorted.
+     * @param customers the Customers to display
+     * */
+    private void showCustomers(ObservableList<Customer> customers){
+        SortedList<Customer> sorted = new SortedList<>(customers);
+        sorted.comparatorProperty().bind(tableCustomers.comparatorProperty());
+        displayCustomers = sorted;
+        tableCustomers.setItems(sorted);
+    }
 }
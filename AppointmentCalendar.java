@@ -4,41 +4,116 @@
  * */
 package Classes;
 
+import Helper.IntMap;
 import Helper.JDBC;
+import Helper.WriteResult;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 /**
  * Appointment Calendar tracking all Appointments.
+ * All Appointments are kept in the shared Appointment Store, windows of time are read from its day index.
+ * Successful writes are applied to the store, it is not read from the database again.
  * */
 public class AppointmentCalendar {
-    private ObservableList<Appointment> allAppointments;
-
-    private static final ZoneId hqZoneID = ZoneId.of("America/New_York");
-
     /**
-     * Constructor retrieving all appointments from the database
+     * Constructor tracking all appointments, retrieved from the database only if the Appointment Store is not loaded
      * */
     public AppointmentCalendar(){
-        allAppointments = JDBC.getAllAppointments();
+        AppointmentStore.load();
     }
 
     /**
+     * On success the ID number of newAppointment is set to the one generated by the database.
      * @param newAppointment Appointment added to Appointment Calendar
      * */
     public boolean addAppointment(Appointment newAppointment){
-        return JDBC.addAppointment(newAppointment);
+        if (JDBC.addAppointment(newAppointment)){
+            applyWrite(newAppointment);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Adds all Appointments in one transaction. If any Appointment fails none are added.
+     * On success the ID number of each Appointment is set to the one generated by the database.
+     * An Appointment overlapping another Appointment of its User, stored or in newAppointments, fails.
+     * @param newAppointments Appointments added to Appointment Calendar
+     * @param chunkSize Appointments sent to the database per batch
+     * @return one result per Appointment, in the order of newAppointments
+     * */
+    public List<WriteResult> addAppointments(Collection<Appointment> newAppointments, int chunkSize){
+        List<WriteResult> results = rejectOverlapping(newAppointments);
+        if (results != null) return results;
+
+        results = JDBC.addAppointments(newAppointments, chunkSize);
+        if (results.contains(WriteResult.SUCCESS)) {
+            applyWrites(newAppointments);
+        }
+        return results;
+    }
+
+    /**
+     * Adds all Appointments in one transaction using the default batch size.
+     * @param newAppointments Appointments added to Appointment Calendar
+     * @return one result per Appointment, in the order of newAppointments
+     * */
+    public List<WriteResult> addAppointments(Collection<Appointment> newAppointments){
+        return addAppointments(newAppointments, JDBC.defaultBatchSize);
     }
 
     /**
      * @param appointmentToUpdate Appointment data to update existing Appointment in the database
      * */
     public boolean updateAppointment(Appointment appointmentToUpdate){
-        return JDBC.updateAppointment(appointmentToUpdate);
+        if (JDBC.updateAppointment(appointmentToUpdate)){
+            applyWrite(appointmentToUpdate);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Updates all Appointments in one transaction. If any Appointment fails none are updated.
+     * An Appointment overlapping another Appointment of its User, stored or in appointmentsToUpdate, fails.
+     * @param appointmentsToUpdate Appointment data to update existing Appointments in the database
+     * @param chunkSize Appointments sent to the database per batch
+     * @return one result per Appointment, in the order of appointmentsToUpdate
+     * */
+    public List<WriteResult> updateAppointments(Collection<Appointment> appointmentsToUpdate, int chunkSize){
+        List<WriteResult> results = rejectOverlapping(appointmentsToUpdate);
+        if (results != null) return results;
+
+        results = JDBC.updateAppointments(appointmentsToUpdate, chunkSize);
+        List<Appointment> written = new ArrayList<>();
+        int index = 0;
+        for (Appointment appointment : appointmentsToUpdate){
+            if (results.get(index++) == WriteResult.SUCCESS) {
+                written.add(appointment);
+            }
+        }
+        applyWrites(written);
+        return results;
+    }
+
+    /**
+     * Updates all Appointments in one transaction using the default batch size.
+     * @param appointmentsToUpdate Appointment data to update existing Appointments in the database
+     * @return one result per Appointment, in the order of appointmentsToUpdate
+     * */
+    public List<WriteResult> updateAppointments(Collection<Appointment> appointmentsToUpdate){
+        return updateAppointments(appointmentsToUpdate, JDBC.defaultBatchSize);
     }
 
     /**
@@ -47,53 +122,120 @@ public class AppointmentCalendar {
      * */
     public boolean deleteAppointment(Appointment appointmentToDelete){
         if (JDBC.deleteAppointment(appointmentToDelete.getId())){
-            allAppointments = JDBC.getAllAppointments();
+            AppointmentStore.remove(appointmentToDelete.getId());
             return true;
         }
         return false;
     }
 
     /**
-     * @return all Appointments in Appointment Calendar
+     * @return unmodifiable snapshot of all Appointments in Appointment Calendar
      * */
     public ObservableList<Appointment> getAllAppointments(){
-        return FXCollections.observableArrayList(allAppointments);
+        return AppointmentStore.getAppointments();
+    }
+
+    /**
+     * Matches the database window query, Start before to and End after from.
+     * Only the Appointments on the days of the window are read.
+     * @param from start of the window in the system default zone
+     * @param to end of the window in the system default zone
+     * @return unmodifiable list of the Appointments in Appointment Calendar overlapping the window, ordered by Start
+     * */
+    public ObservableList<Appointment> getAppointments(LocalDateTime from, LocalDateTime to){
+        return FXCollections.unmodifiableObservableList(FXCollections.observableList(AppointmentStore.getAppointments(from, to)));
+    }
+
+    /**
+     * @param date the day in the system default zone
+     * @return unmodifiable list of the Appointments in Appointment Calendar on date, ordered by Start
+     * */
+    public ObservableList<Appointment> getAppointments(LocalDate date){
+        return getAppointments(date.atStartOfDay(), date.plusDays(1).atStartOfDay());
+    }
+
+    /**
+     * @param checkAppointment the Appointment to check, it is not matched against itself
+     * @return the Appointments in Appointment Calendar of the same User that overlap checkAppointment
+     * */
+    public List<Appointment> getOverlappingAppointments(Appointment checkAppointment){
+        return AppointmentStore.getOverlapping(checkAppointment);
+    }
+
+    /**
+     * Checks Appointments about to be written together against all stored Appointments and against each other.
+     * A stored Appointment with the same ID number as one in checkAppointments is replaced by it and not checked.
+     * @param checkAppointments the Appointments to check
+     * @return one list per Appointment, in the order of checkAppointments, of the Appointments it overlaps
+     * */
+    public static List<List<Appointment>> getOverlappingAppointments(Collection<Appointment> checkAppointments){
+        Set<Integer> replacedIDs = new HashSet<>();
+        checkAppointments.forEach(n -> replacedIDs.add(n.getId()));
+
+        List<List<Appointment>> allOverlapping = new ArrayList<>();
+        AppointmentIndex checkedIndex = new AppointmentIndex();
+        IntMap<Appointment> checked = new IntMap<>(checkAppointments.size());
+        int position = 0;
+        for (Appointment checkAppointment : checkAppointments){
+            Appointment key = new Appointment(checkAppointment);
+            // New Appointments have no ID number yet, number them so they are not taken for each other
+            if (key.getId() == 0) key.setId(-++position);
+
+            List<Appointment> overlapping = new ArrayList<>();
+            for (Appointment stored : AppointmentStore.getOverlapping(key)){
+                if (!replacedIDs.contains(stored.getId())) overlapping.add(stored);
+            }
+            checkedIndex.getOverlapping(key).forEach(n -> overlapping.add(checked.get(n.getId())));
+            allOverlapping.add(overlapping);
+
+            checkedIndex.add(key);
+            checked.put(key.getId(), checkAppointment);
+        }
+        return allOverlapping;
+    }
+
+    /**
+     * @return results failing every overlapping Appointment and rolling back the others, or null if none overlap
+     * */
+    private static List<WriteResult> rejectOverlapping(Collection<Appointment> appointments){
+        List<List<Appointment>> allOverlapping = getOverlappingAppointments(appointments);
+        if (allOverlapping.stream().allMatch(List::isEmpty)) return null;
+
+        List<WriteResult> results = new ArrayList<>();
+        allOverlapping.forEach(n -> results.add(n.isEmpty() ? WriteResult.ROLLED_BACK : WriteResult.FAILED));
+        return results;
+    }
+
+    /**
+     * Applies an Appointment written to the database to the Appointment Store.
+     * @param appointment the Appointment as written to the database
+     * */
+    private void applyWrite(Appointment appointment){
+        AppointmentStore.put(appointment);
+    }
+
+    /**
+     * Applies many Appointments written to the database with one merge into the Appointment Store.
+     * @param appointments the Appointments as written to the database
+     * */
+    private void applyWrites(Collection<Appointment> appointments){
+        if (appointments.isEmpty()) return;
+
+        List<Appointment> copies = new ArrayList<>();
+        appointments.forEach(n -> copies.add(new Appointment(n)));
+        AppointmentStore.merge(copies);
     }
 
     /**
      * Determines if the startTime and endTime of an appointment are inside business hours of
      * Monday through Friday, 8:00 a.m. to 10:00 p.m. Eastern Time.
+     * Checked against the compiled Business Hours of headquarters.
      * @param startTime the Part to be copied
      * @param endTime the Part to be copied
      * @return true if in business hours , false if outside business hours
      * */
     public static boolean inBusinessHours(LocalDateTime startTime, LocalDateTime endTime){
-        //ET
-        ZonedDateTime[] meetingTimes = {startTime.atZone(ZoneId.systemDefault()).withZoneSameInstant(hqZoneID),
-                                        endTime.atZone(ZoneId.systemDefault()).withZoneSameInstant(hqZoneID)};
-
-        for (ZonedDateTime meetingTime : meetingTimes) {
-            //Saturday
-            if (meetingTime.getDayOfWeek().getValue() == 6) {
-                return false;
-            }
-            //Sunday
-            if (meetingTime.getDayOfWeek().getValue() == 7) {
-                return false;
-            }
-            //Before 8 am
-            if (meetingTime.getHour() < 8) {
-                return false;
-            }
-            //After 10 pm
-            if (meetingTime.getHour() > 22) {
-                return false;
-            }
-            if (meetingTime.getHour() == 22 && meetingTime.getMinute() != 0) {
-                return false;
-            }
-        }
-        return true;
+        return BusinessHours.HQ.isOpen(startTime) && BusinessHours.HQ.isOpen(endTime);
     }
 
     /**
@@ -101,6 +243,6 @@ public class AppointmentCalendar {
      * @return a copy of dateTime in Eastern Time zone.
      * */
     public static ZonedDateTime toHQZoneID(LocalDateTime dateTime){
-        return dateTime.atZone(ZoneId.systemDefault()).withZoneSameInstant(hqZoneID);
+        return dateTime.atZone(ZoneId.systemDefault()).withZoneSameInstant(BusinessHours.HQ.getZoneID());
     }
 }
@@ -5,6 +5,8 @@
 package Controllers;
 
 import Classes.*;
+import Helper.DataAccessException;
+import Helper.QueryExecutor;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
@@ -20,6 +22,7 @@ import java.net.URL;
 import java.time.*;
 import java.time.format.DateTimeFormatter;
 import java.time.format.FormatStyle;
+import java.util.List;
 import java.util.ResourceBundle;
 import java.util.function.BiConsumer;
 
@@ -58,7 +61,6 @@ public class AppointmentController implements Initializable {
 
     /**
      * Initializes the Appointment Form.
-     * Appointments are fetched from the database by a new Appointment Calendar.
      * Customers, Users, Contacts, and Countries are fetched from the database by a new Directory.
      * <p>
      *     Lambda Expression is used to populate the Combo Boxes for Customers, Users, and Contacts.
@@ -70,7 +72,6 @@ public class AppointmentController implements Initializable {
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
         directory = new Directory();
-        appointmentCalendar = new AppointmentCalendar();
 
         //Lambda Expression
         BiConsumer<Individual, ComboBox<String>> comboAdder = (n, c) -> c.getItems().add(n.getId() + delimiter + n.getName());
@@ -165,10 +166,10 @@ public class AppointmentController implements Initializable {
      * Triggered when the 'Save' button is selected.
      * </p>
      * <p>
-     *     Lambda Expression is used to determine if appointments will overlap.
-     *     The stream forEach is used to cycle through each existing appointment.
-     *     A Lambda is then used to determine if they will overlap with the New Appointment.
-     *     If they will overlap the appointment is added to a list of overlapping Appointments.
+     *     Overlapping appointments are found in the User's interval index of the shared Appointment Store,
+     *     only the User's appointments near the new Appointment's time are checked and nothing is fetched
+     *     from the database once the store is loaded.
+     *     Any found are listed in the error shown to the User.
      * </p>
      * */
     public void onSave(ActionEvent actionEvent) {
@@ -278,10 +279,17 @@ public class AppointmentController implements Initializable {
 
             if (mode == MODE.UPDATE) newAppointment.setId(Integer.parseInt(textID.getText()));
 
-            //Overlapping Appointments
-            ObservableList<Appointment> overlappingAppointments = FXCollections.observableArrayList();
-            //Lambda Expression
-            appointmentCalendar.getAllAppointments().forEach((n) -> {if (n.overlap(newAppointment)) overlappingAppointments.add(n);});
+            //Overlapping Appointments, found in the User's interval index of the shared Appointment Store
+            try {
+                appointmentCalendar = new AppointmentCalendar();
+            } catch (DataAccessException e){
+                Alert alert = new Alert(Alert.AlertType.ERROR);
+                alert.setTitle("Save Failed.");
+                alert.setContentText("Could not check for overlapping appointments. Please check connection to database and restart program.");
+                alert.showAndWait();
+                return;
+            }
+            List<Appointment> overlappingAppointments = appointmentCalendar.getOverlappingAppointments(newAppointment);
             if (overlappingAppointments.size() > 0) {
                 Alert alert = new Alert(Alert.AlertType.ERROR);
                 alert.setTitle("Appointment Overlap");
@@ -357,6 +365,7 @@ public class AppointmentController implements Initializable {
      * */
     private void toAllAppointments(ActionEvent actionEvent) {
         try {
+            QueryExecutor.newScreenScope("Appointments");
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/Forms/AllAppointments.fxml"));
             Parent root = loader.load();
 
@@ -0,0 +1,131 @@
+/**
+ *
+ * @author Arthur J Amende
+ * */
+package Classes;
+
+import Helper.IntMap;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Index of Appointments by local date, answering which Appointments fall in a day, week, month, or any window.
+ * <p>
+ *     An Appointment is kept in the bucket of every date it touches, so one spanning midnight is found
+ *     from either day. A window only reads the buckets of its own dates, however many Appointments
+ *     are indexed. Not synchronized.
+ * </p>
+ * */
+public class AppointmentDayIndex {
+    private final TreeMap<LocalDate, List<Appointment>> byDate = new TreeMap<>();
+    private int size;
+
+    /** Constructor for an empty index. */
+    public AppointmentDayIndex(){
+    }
+
+    /**
+     * @param appointment the Appointment to index, indexed again if its time changes
+     * */
+    public void add(Appointment appointment){
+        LocalDate last = lastDate(appointment);
+        for (LocalDate date = firstDate(appointment); !date.isAfter(last); date = date.plusDays(1)){
+            byDate.computeIfAbsent(date, n -> new ArrayList<>()).add(appointment);
+        }
+        ++size;
+    }
+
+    /**
+     * @param appointment the Appointment to remove, with the time it was indexed with
+     * @return true if the Appointment was indexed, otherwise false
+     * */
+    public boolean remove(Appointment appointment){
+        boolean removed = false;
+        LocalDate last = lastDate(appointment);
+        for (LocalDate date = firstDate(appointment); !date.isAfter(last); date = date.plusDays(1)){
+            List<Appointment> bucket = byDate.get(date);
+            if (bucket != null && bucket.removeIf(n -> n.getId() == appointment.getId())) {
+                removed = true;
+                if (bucket.isEmpty()) {
+                    byDate.remove(date);
+                }
+            }
+        }
+        if (removed) {
+            --size;
+        }
+        return removed;
+    }
+
+    /**
+     * Removes all Appointments.
+     * */
+    public void clear(){
+        byDate.clear();
+        size = 0;
+    }
+
+    /**
+     * @return number of indexed Appointments
+     * */
+    public int size(){
+        return size;
+    }
+
+    /**
+     * @param date the day
+     * @return Appointments touching date, ordered by Start
+     * */
+    public List<Appointment> getAppointments(LocalDate date){
+        return getAppointments(date.atStartOfDay(), date.plusDays(1).atStartOfDay());
+    }
+
+    /**
+     * Matches the database window query, Start before to and End after from.
+     * @param from start of the window
+     * @param to end of the window
+     * @return Appointments overlapping the window, ordered by Start
+     * */
+    public List<Appointment> getAppointments(LocalDateTime from, LocalDateTime to){
+        List<Appointment> appointments = new ArrayList<>();
+        LocalDate first = from.isAfter(to) ? to.toLocalDate() : from.toLocalDate();
+        LocalDate last = from.isAfter(to) ? from.toLocalDate() : to.toLocalDate();
+
+        IntMap<Appointment> seen = new IntMap<>();
+        for (List<Appointment> bucket : byDate.subMap(first, true, last, true).values()){
+            for (Appointment appointment : bucket){
+                if (appointment.getStartDateTimeLocal().isBefore(to) && appointment.getEndDateTimeLocal().isAfter(from)
+                        && seen.put(appointment.getId(), appointment) == null) {
+                    appointments.add(appointment);
+                }
+            }
+        }
+        appointments.sort(AppointmentStore.byStart);
+        return appointments;
+    }
+
+    private static LocalDate firstDate(Appointment appointment){
+        LocalDateTime start = appointment.getStartDateTimeLocal();
+        LocalDateTime end = appointment.getEndDateTimeLocal();
+        return (start.isAfter(end) ? end : start).toLocalDate();
+    }
+
+    /**
+     * An Appointment ending exactly at midnight does not touch the day that begins then.
+     * */
+    private static LocalDate lastDate(Appointment appointment){
+        LocalDateTime start = appointment.getStartDateTimeLocal();
+        LocalDateTime end = appointment.getEndDateTimeLocal();
+        LocalDateTime first = start.isAfter(end) ? end : start;
+        LocalDateTime last = start.isAfter(end) ? start : end;
+        if (last.isAfter(first) && last.toLocalTime().equals(LocalTime.MIDNIGHT)) {
+            return last.toLocalDate().minusDays(1);
+        }
+        return last.toLocalDate();
+    }
+}
@@ -0,0 +1,143 @@
+/**
+ *
+ * @author Arthur J Amende
+ * */
+package Classes;
+
+import Helper.IntMap;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Index of Appointments by User and Start, answering which Appointments of a User overlap a time.
+ * <p>
+ *     Each User's Appointments are kept in a tree ordered by the earlier of Start and End, together with
+ *     the longest Appointment the User has, kept by counting the Appointments of each length. An Appointment ending at or after a time must start
+ *     no earlier than that time minus the longest Appointment, so only that part of the tree is searched.
+ *     Finding the overlaps of one Appointment takes logarithmic time plus the Appointments near it.
+ *     The candidates found are checked with Appointment.overlap, so the answer is exactly the one
+ *     checking every Appointment would give. Not synchronized.
+ * </p>
+ * */
+public class AppointmentIndex {
+    /**
+     * One User's Appointments ordered by their earlier time, and the number of them of each length.
+     * */
+    private static class UserIndex {
+        private final TreeMap<LocalDateTime, List<Appointment>> byStart = new TreeMap<>();
+        private final TreeMap<Duration, Integer> spans = new TreeMap<>();
+
+        /**
+         * @return the length of the longest indexed Appointment, shrinking when it is removed
+         * */
+        private Duration longest(){
+            return spans.isEmpty() ? Duration.ZERO : spans.lastKey();
+        }
+    }
+
+    private final IntMap<UserIndex> users = new IntMap<>();
+    private int size;
+
+    /** Constructor for an empty index. */
+    public AppointmentIndex(){
+    }
+
+    /**
+     * Constructor indexing appointments.
+     * @param appointments the Appointments to index
+     * */
+    public AppointmentIndex(Iterable<Appointment> appointments){
+        appointments.forEach(this::add);
+    }
+
+    /**
+     * @param appointment the Appointment to index, indexed again if its time or User changes
+     * */
+    public void add(Appointment appointment){
+        UserIndex userIndex = users.get(appointment.getUserID());
+        if (userIndex == null) {
+            userIndex = new UserIndex();
+            users.put(appointment.getUserID(), userIndex);
+        }
+        userIndex.byStart.computeIfAbsent(earlier(appointment), n -> new ArrayList<>(1)).add(appointment);
+        userIndex.spans.merge(span(appointment), 1, Integer::sum);
+        ++size;
+    }
+
+    /**
+     * @param appointment the Appointment to remove, with the time and User it was indexed with
+     * @return true if the Appointment was indexed, otherwise false
+     * */
+    public boolean remove(Appointment appointment){
+        UserIndex userIndex = users.get(appointment.getUserID());
+        if (userIndex == null) return false;
+
+        LocalDateTime start = earlier(appointment);
+        List<Appointment> sameStart = userIndex.byStart.get(start);
+        if (sameStart == null || !sameStart.removeIf(n -> n.getId() == appointment.getId())) return false;
+
+        if (sameStart.isEmpty()) {
+            userIndex.byStart.remove(start);
+        }
+        userIndex.spans.computeIfPresent(span(appointment), (span, count) -> count == 1 ? null : count - 1);
+        --size;
+        return true;
+    }
+
+    /**
+     * Removes all Appointments.
+     * */
+    public void clear(){
+        users.clear();
+        size = 0;
+    }
+
+    /**
+     * @return number of indexed Appointments
+     * */
+    public int size(){
+        return size;
+    }
+
+    /**
+     * @param checkAppointment the Appointment to check, it is not matched against itself
+     * @return the indexed Appointments of the same User that overlap checkAppointment, ordered by Start
+     * */
+    public List<Appointment> getOverlapping(Appointment checkAppointment){
+        List<Appointment> overlapping = new ArrayList<>();
+        UserIndex userIndex = users.get(checkAppointment.getUserID());
+        if (userIndex == null) return overlapping;
+
+        LocalDateTime from = earlier(checkAppointment);
+        LocalDateTime to = later(checkAppointment);
+        for (Map.Entry<LocalDateTime, List<Appointment>> entry : userIndex.byStart.subMap(from.minus(userIndex.longest()), true, to, true).entrySet()){
+            for (Appointment appointment : entry.getValue()){
+                if (!later(appointment).isBefore(from) && appointment.overlap(checkAppointment)) {
+                    overlapping.add(appointment);
+                }
+            }
+        }
+        return overlapping;
+    }
+
+    private static Duration span(Appointment appointment){
+        return Duration.between(earlier(appointment), later(appointment));
+    }
+
+    private static LocalDateTime earlier(Appointment appointment){
+        LocalDateTime start = appointment.getStartDateTimeLocal();
+        LocalDateTime end = appointment.getEndDateTimeLocal();
+        return start.isAfter(end) ? end : start;
+    }
+
+    private static LocalDateTime later(Appointment appointment){
+        LocalDateTime start = appointment.getStartDateTimeLocal();
+        LocalDateTime end = appointment.getEndDateTimeLocal();
+        return start.isAfter(end) ? start : end;
+    }
+}
@@ -0,0 +1,87 @@
+/**
+ *
+ * @author Arthur J Amende
+ * */
+package Helper;
+
+import Classes.Appointment;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneRules;
+
+/**
+ * Maps appointment rows to Appointments with as few temporary objects as possible.
+ * <p>
+ *     Columns are read by position in the order of SELECT_COLUMNS instead of by name.
+ *     Start and End are read as LocalDateTime in UTC and shifted to the system default zone
+ *     with ZoneRules looked up once per query, no strings are built or parsed.
+ *     Use a new mapper for each query.
+ * </p>
+ * */
+public class AppointmentMapper implements RowMapper<Appointment> {
+    /** Columns every appointment query must select, in this order. */
+    public static final String SELECT_COLUMNS = "Appointment_ID, Title, Description, Location, Type, Start, End, Customer_ID, User_ID, Contact_ID";
+
+    private static final int id = 1;
+    private static final int title = 2;
+    private static final int description = 3;
+    private static final int location = 4;
+    private static final int type = 5;
+    private static final int start = 6;
+    private static final int end = 7;
+    private static final int customerID = 8;
+    private static final int userID = 9;
+    private static final int contactID = 10;
+
+    private final ZoneRules localRules;
+    private final ZoneOffset fixedOffset;
+    private LocalDateTime lastStartUTC;
+
+    /** Constructor for a mapper converting to the current system default zone. */
+    public AppointmentMapper(){
+        localRules = ZoneId.systemDefault().getRules();
+        fixedOffset = localRules.isFixedOffset() ? localRules.getOffset(Instant.EPOCH) : null;
+    }
+
+    @Override
+    public Appointment map(ResultSet resultSet) throws SQLException {
+        LocalDateTime startUTC = resultSet.getObject(start, LocalDateTime.class);
+        LocalDateTime endUTC = resultSet.getObject(end, LocalDateTime.class);
+        lastStartUTC = startUTC;
+
+        return new Appointment(resultSet.getInt(id),
+                resultSet.getString(title),
+                resultSet.getString(description),
+                resultSet.getString(location),
+                resultSet.getString(type),
+                toLocal(startUTC),
+                toLocal(endUTC),
+                resultSet.getInt(customerID),
+                resultSet.getInt(userID),
+                resultSet.getInt(contactID));
+    }
+
+    /**
+     * @return Start in UTC of the last row mapped, as stored in the database
+     * */
+    public LocalDateTime getLastStartUTC(){
+        return lastStartUTC;
+    }
+
+    /**
+     * @param utc date time in UTC
+     * @return the same instant in the system default zone
+     * */
+    private LocalDateTime toLocal(LocalDateTime utc){
+        if (fixedOffset != null) {
+            return fixedOffset.getTotalSeconds() == 0 ? utc : utc.plusSeconds(fixedOffset.getTotalSeconds());
+        }
+        ZoneOffset offset = localRules.getOffset(utc.toInstant(ZoneOffset.UTC));
+        return utc.plusSeconds(offset.getTotalSeconds());
+    }
+}
@@ -0,0 +1,419 @@
+/**
+ *
+ * @author Arthur J Amende
+ * */
+package Classes;
+
+import Helper.ChunkedSortedList;
+import Helper.JDBC;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Process wide store of all Appointments shared by every Appointment Calendar.
+ * <p>
+ *     All Appointments are loaded from the database the first time they are needed. Afterwards every
+ *     successful write through an Appointment Calendar is applied to the store, so the Appointments
+ *     never have to be read again after an edit. Appointments are kept ordered by Start and ID number,
+ *     and indexed by ID number, by User and time, and by local date.
+ *     Appointments are handed out as unmodifiable snapshots that never change, so a snapshot can be
+ *     read from any thread while the store is being updated. A change publishes a new snapshot that
+ *     shares every chunk of about 512 Appointments it did not touch with the one before, so put and
+ *     remove copy one chunk and the chunk references, not every Appointment. Apply many changes with
+ *     one call to merge, which visits the chunks once however many Appointments change.
+ *     Listeners are told about changes after the store is unlocked, in the order the changes were made.
+ *     Every change increments the version, so a holder of older data can tell it is stale.
+ * </p>
+ * */
+public abstract class AppointmentStore {
+    /**
+     * Told about every change to the store.
+     * Called after the store is unlocked, on the thread that made the change or on one changing the store
+     * at the same time, one change at a time and in order. A listener may read the store.
+     * An update is told as the removal of the old Appointment followed by the addition of the new one.
+     * */
+    public interface Listener {
+        /**
+         * @param appointments all Appointments, replacing any told before. Do not modify them.
+         * */
+        default void appointmentsLoaded(List<Appointment> appointments){}
+
+        /** All Appointments were dropped, they are loaded again on next use. */
+        default void appointmentsInvalidated(){}
+
+        /**
+         * @param appointment the added Appointment. Do not modify it.
+         * */
+        default void appointmentAdded(Appointment appointment){}
+
+        /**
+         * @param appointment the removed Appointment, as it was added
+         * */
+        default void appointmentRemoved(Appointment appointment){}
+    }
+
+    /**
+     * A change to tell the listeners registered when it was made.
+     * */
+    private static class Event {
+        private final List<Listener> listeners;
+        private final Consumer<Listener> tell;
+
+        private Event(List<Listener> listeners, Consumer<Listener> tell){
+            this.listeners = listeners;
+            this.tell = tell;
+        }
+    }
+
+    static final Comparator<Appointment> byStart = Comparator.comparing(Appointment::getStartDateTimeLocal).thenComparingInt(Appointment::getId);
+
+    private static ChunkedSortedList<Appointment> sortedAppointments;
+    private static ObservableList<Appointment> allAppointments;
+    private static final Map<Integer, Appointment> appointmentsByID = new HashMap<>();
+    private static final AppointmentIndex userIndex = new AppointmentIndex();
+    private static final AppointmentDayIndex dayIndex = new AppointmentDayIndex();
+
+    // Replaced, never changed, so an Event keeps the listeners registered when it was made
+    private static volatile List<Listener> listeners = Collections.emptyList();
+    private static final Queue<Event> pendingEvents = new ArrayDeque<>();
+    private static final Object deliveryLock = new Object();
+    private static boolean delivering;
+
+    private static long version = 0;
+
+    /**
+     * Loads all Appointments if they are not already loaded.
+     * @throws Helper.DataAccessException if the Appointments could not be loaded
+     * */
+    public static void load(){
+        synchronized (AppointmentStore.class) {
+            loadLocked();
+        }
+        deliver();
+    }
+
+    /**
+     * @param listener told about every later change, and about all Appointments now if they are loaded
+     * */
+    public static void addListener(Listener listener){
+        synchronized (AppointmentStore.class) {
+            List<Listener> changed = new ArrayList<>(listeners);
+            changed.add(listener);
+            listeners = Collections.unmodifiableList(changed);
+            if (allAppointments != null) {
+                List<Appointment> appointments = allAppointments;
+                pendingEvents.add(new Event(Collections.singletonList(listener), n -> n.appointmentsLoaded(appointments)));
+            }
+        }
+        deliver();
+    }
+
+    /**
+     * @param listener no longer told about changes, including changes made but not yet told
+     * */
+    public static synchronized void removeListener(Listener listener){
+        List<Listener> changed = new ArrayList<>(listeners);
+        changed.remove(listener);
+        listeners = Collections.unmodifiableList(changed);
+    }
+
+    /**
+     * @return unmodifiable snapshot of all Appointments ordered by Start, loading them if needed
+     * */
+    public static ObservableList<Appointment> getAppointments(){
+        ObservableList<Appointment> appointments;
+        synchronized (AppointmentStore.class) {
+            loadLocked();
+            appointments = allAppointments;
+        }
+        deliver();
+        return appointments;
+    }
+
+    /**
+     * @param appointmentID Primary Key of the Appointment
+     * @return a copy of the Appointment, or null if not found
+     * */
+    public static Appointment getAppointment(int appointmentID){
+        Appointment appointment;
+        synchronized (AppointmentStore.class) {
+            loadLocked();
+            appointment = appointmentsByID.get(appointmentID);
+        }
+        deliver();
+        return appointment == null ? null : new Appointment(appointment);
+    }
+
+    /**
+     * @param checkAppointment the Appointment to check, it is not matched against itself
+     * @return the stored Appointments of the same User that overlap checkAppointment, loading them if needed
+     * */
+    public static List<Appointment> getOverlapping(Appointment checkAppointment){
+        List<Appointment> overlapping;
+        synchronized (AppointmentStore.class) {
+            loadLocked();
+            overlapping = userIndex.getOverlapping(checkAppointment);
+        }
+        deliver();
+        return overlapping;
+    }
+
+    /**
+     * Matches the database window query, Start before to and End after from.
+     * Only the days of the window are read, loading the Appointments if needed.
+     * @param from start of the window in the system default zone
+     * @param to end of the window in the system default zone
+     * @return the stored Appointments overlapping the window, ordered by Start
+     * */
+    public static List<Appointment> getAppointments(LocalDateTime from, LocalDateTime to){
+        List<Appointment> appointments;
+        synchronized (AppointmentStore.class) {
+            loadLocked();
+            appointments = dayIndex.getAppointments(from, to);
+        }
+        deliver();
+        return appointments;
+    }
+
+    /**
+     * Adds an Appointment written to the database, replacing any Appointment with the same ID number.
+     * Copies only the chunk of the snapshot the Appointment falls in, use merge for more than one Appointment.
+     * Does nothing if the Appointments are not loaded yet, the next load reads it from the database.
+     * @param appointment the Appointment as written to the database
+     * */
+    public static void put(Appointment appointment){
+        synchronized (AppointmentStore.class) {
+            if (allAppointments == null) return;
+
+            Appointment copy = new Appointment(appointment);
+            Appointment previous = appointmentsByID.put(copy.getId(), copy);
+            if (previous != null) {
+                unindex(previous);
+            }
+            index(copy);
+            publish(sortedAppointments.changed(previous == null ? Collections.emptyList() : Collections.singletonList(previous),
+                    Collections.singletonList(copy)));
+        }
+        deliver();
+    }
+
+    /**
+     * Removes an Appointment deleted from the database.
+     * @param appointmentID Primary Key of the deleted Appointment
+     * */
+    public static void remove(int appointmentID){
+        synchronized (AppointmentStore.class) {
+            if (allAppointments == null) return;
+
+            Appointment previous = appointmentsByID.remove(appointmentID);
+            if (previous == null) return;
+
+            unindex(previous);
+            publish(sortedAppointments.without(previous));
+        }
+        deliver();
+    }
+
+    /**
+     * Removes all Appointments of a Customer deleted from the database.
+     * @param customerID Primary Key of the deleted Customer
+     * */
+    public static void removeCustomer(int customerID){
+        synchronized (AppointmentStore.class) {
+            if (allAppointments == null) return;
+
+            removeWhere(n -> n.getCustomerID() == customerID);
+        }
+        deliver();
+    }
+
+    /**
+     * Applies Appointments changed in the database, replacing stored Appointments with the same ID number.
+     * The snapshot is changed in one pass over its chunks, copying only the chunks that change.
+     * If an ID number is given more than once the last Appointment with it is kept.
+     * Does nothing if the Appointments are not loaded yet.
+     * @param changedAppointments Appointments as read from the database, kept by the store
+     * */
+    public static void merge(Collection<Appointment> changedAppointments){
+        synchronized (AppointmentStore.class) {
+            if (allAppointments == null || changedAppointments.isEmpty()) return;
+
+            Map<Integer, Appointment> latest = new LinkedHashMap<>();
+            changedAppointments.forEach(n -> latest.put(n.getId(), n));
+            List<Appointment> replaced = new ArrayList<>();
+            for (Appointment appointment : latest.values()){
+                Appointment previous = appointmentsByID.put(appointment.getId(), appointment);
+                if (previous != null) {
+                    replaced.add(previous);
+                    unindex(previous);
+                }
+                index(appointment);
+            }
+            publish(sortedAppointments.changed(replaced, latest.values()));
+        }
+        deliver();
+    }
+
+    /**
+     * Removes stored Appointments no longer in the database.
+     * ID numbers are never reused, so an Appointment with an ID number up to highWater existed when
+     * highWater was read. If it is missing from appointmentIDs it was deleted. Appointments with a higher
+     * ID number may have been added after appointmentIDs was read and are kept.
+     * @param appointmentIDs ID numbers of all Appointments in the database
+     * @param highWater the highest ID number the database had issued before appointmentIDs was read
+     * */
+    public static void retain(Set<Integer> appointmentIDs, int highWater){
+        synchronized (AppointmentStore.class) {
+            if (allAppointments == null) return;
+
+            removeWhere(n -> n.getId() <= highWater && !appointmentIDs.contains(n.getId()));
+        }
+        deliver();
+    }
+
+    /**
+     * @return ID numbers of the stored Appointments, or null if they are not loaded
+     * */
+    public static synchronized Set<Integer> getAppointmentIDs(){
+        return allAppointments == null ? null : new HashSet<>(appointmentsByID.keySet());
+    }
+
+    /**
+     * @return number of Appointments in the store, or -1 if it is not loaded
+     * */
+    public static synchronized int size(){
+        return allAppointments == null ? -1 : allAppointments.size();
+    }
+
+    /**
+     * Drops all Appointments, the next use reloads them.
+     * */
+    public static void invalidate(){
+        synchronized (AppointmentStore.class) {
+            sortedAppointments = null;
+            allAppointments = null;
+            appointmentsByID.clear();
+            userIndex.clear();
+            dayIndex.clear();
+            ++version;
+            post(Listener::appointmentsInvalidated);
+        }
+        deliver();
+    }
+
+    /**
+     * @return the version of the stored data, incremented on every load and change
+     * */
+    public static synchronized long getVersion(){
+        return version;
+    }
+
+    /**
+     * Loads all Appointments if they are not already loaded. Call holding the store's lock.
+     * */
+    private static void loadLocked(){
+        if (allAppointments != null) return;
+
+        ObservableList<Appointment> loaded = JDBC.getAllAppointments();
+        loaded.sort(byStart);
+        appointmentsByID.clear();
+        userIndex.clear();
+        dayIndex.clear();
+        loaded.forEach(n -> {
+            appointmentsByID.put(n.getId(), n);
+            userIndex.add(n);
+            dayIndex.add(n);
+        });
+        publish(ChunkedSortedList.of(loaded, byStart));
+        List<Appointment> appointments = allAppointments;
+        post(n -> n.appointmentsLoaded(appointments));
+    }
+
+    /**
+     * Removes every stored Appointment matching removed. Call holding the store's lock.
+     * */
+    private static void removeWhere(Predicate<Appointment> removed){
+        List<Appointment> removing = new ArrayList<>();
+        appointmentsByID.values().removeIf(n -> {
+            if (!removed.test(n)) return false;
+            unindex(n);
+            removing.add(n);
+            return true;
+        });
+        if (!removing.isEmpty()) {
+            publish(sortedAppointments.changed(removing, Collections.emptyList()));
+        }
+    }
+
+    private static void index(Appointment appointment){
+        userIndex.add(appointment);
+        dayIndex.add(appointment);
+        post(n -> n.appointmentAdded(appointment));
+    }
+
+    private static void unindex(Appointment appointment){
+        userIndex.remove(appointment);
+        dayIndex.remove(appointment);
+        post(n -> n.appointmentRemoved(appointment));
+    }
+
+    /**
+     * Replaces the snapshot.
+     * */
+    private static void publish(ChunkedSortedList<Appointment> appointments){
+        sortedAppointments = appointments;
+        allAppointments = FXCollections.unmodifiableObservableList(FXCollections.observableList(appointments));
+        ++version;
+    }
+
+    /**
+     * Queues a change for the listeners registered now. Call holding the store's lock.
+     * */
+    private static void post(Consumer<Listener> tell){
+        if (!listeners.isEmpty()) {
+            pendingEvents.add(new Event(listeners, tell));
+        }
+    }
+
+    private static synchronized Event nextEvent(){
+        return pendingEvents.poll();
+    }
+
+    /**
+     * Tells the listeners about every queued change, in order. Call after releasing the store's lock.
+     * One thread tells at a time, so a thread returns once its own changes have been told. Changes made
+     * by a listener are told after it returns.
+     * */
+    private static void deliver(){
+        synchronized (deliveryLock) {
+            if (delivering) return;
+
+            delivering = true;
+            try {
+                for (Event event = nextEvent(); event != null; event = nextEvent()){
+                    for (Listener listener : event.listeners){
+                        if (listeners.contains(listener)) event.tell.accept(listener);
+                    }
+                }
+            } finally {
+                delivering = false;
+            }
+        }
+    }
+}
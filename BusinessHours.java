@@ -0,0 +1,268 @@
+/**
+ *
+ * @author Arthur J Amende
+ * */
+package Classes;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Weekly opening hours of one office, answering whether times are in business hours and when the
+ * next opening of a given length starts.
+ * <p>
+ *     The opening hours are local to the office's zone. Each week they are compiled once into a sorted
+ *     array of UTC open and close instants, with the zone's offsets on each day applied, so daylight
+ *     saving changes move the openings the way the office's clocks do. The compiled weeks are cached,
+ *     later checks are a binary search on the array with no zone conversion. Openings that touch or
+ *     overlap are joined. Open and close are both in business hours. Thread safe.
+ * </p>
+ * */
+public class BusinessHours {
+    private static final long secondsPerDay = 86_400;
+    private static final long secondsPerWeek = 7 * secondsPerDay;
+    // 1970-01-01 was a Thursday, shifting by 3 days makes UTC weeks start on Monday
+    private static final long weekShift = 3 * secondsPerDay;
+    // Weeks searched by nextValidStart before giving up
+    private static final int maxWeeksSearched = 53;
+    private static final int maxCachedWeeks = 1024;
+
+    /** Corporate headquarters in White Plains, Monday through Friday, 8:00 a.m. to 10:00 p.m. Eastern Time. */
+    public static final BusinessHours HQ = new BusinessHours("White Plains", ZoneId.of("America/New_York"), LocalTime.of(8, 0), LocalTime.of(22, 0), weekdays());
+
+    private static final List<BusinessHours> offices = Collections.unmodifiableList(Arrays.asList(
+            HQ,
+            new BusinessHours("Phoenix", ZoneId.of("America/Phoenix"), LocalTime.of(8, 0), LocalTime.of(22, 0), weekdays()),
+            new BusinessHours("Montreal", ZoneId.of("America/Toronto"), LocalTime.of(8, 0), LocalTime.of(22, 0), weekdays()),
+            new BusinessHours("London", ZoneId.of("Europe/London"), LocalTime.of(8, 0), LocalTime.of(22, 0), weekdays())));
+
+    private final String name;
+    private final ZoneId zoneID;
+    private final LocalTime open;
+    private final LocalTime close;
+    private final Set<DayOfWeek> days;
+    // UTC week number to open and close epoch seconds, alternating and ascending
+    private final ConcurrentHashMap<Long, long[]> weeks = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor for an office open the same hours on each of its days.
+     * A close at or before open closes on the following day.
+     * @param name name of the office
+     * @param zoneID zone of the office's clocks
+     * @param open local time the office opens
+     * @param close local time the office closes
+     * @param days days of the week the office opens
+     * */
+    public BusinessHours(String name, ZoneId zoneID, LocalTime open, LocalTime close, Set<DayOfWeek> days){
+        this.name = name;
+        this.zoneID = zoneID;
+        this.open = open;
+        this.close = close;
+        this.days = days.isEmpty() ? EnumSet.noneOf(DayOfWeek.class) : EnumSet.copyOf(days);
+    }
+
+    /**
+     * @return every office, headquarters first
+     * */
+    public static List<BusinessHours> getOffices(){
+        return offices;
+    }
+
+    /**
+     * @param name name of an office
+     * @return the office, or null if there is no office with that name
+     * */
+    public static BusinessHours getOffice(String name){
+        for (BusinessHours office : offices){
+            if (office.name.equals(name)) {
+                return office;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return name of the office
+     * */
+    public String getName(){
+        return name;
+    }
+
+    /**
+     * @return zone of the office's clocks
+     * */
+    public ZoneId getZoneID(){
+        return zoneID;
+    }
+
+    /**
+     * @param instant the time to check
+     * @return true if the office is open at instant, otherwise false
+     * */
+    public boolean isOpen(Instant instant){
+        long second = instant.getEpochSecond();
+        long[] intervals = week(weekOf(second));
+        int i = openingAtOrBefore(intervals, second);
+        return i >= 0 && second <= intervals[i + 1];
+    }
+
+    /**
+     * @param dateTime the time to check in the system default zone
+     * @return true if the office is open at dateTime, otherwise false
+     * */
+    public boolean isOpen(LocalDateTime dateTime){
+        return isOpen(toInstant(dateTime));
+    }
+
+    /**
+     * @param start start of the meeting
+     * @param end end of the meeting
+     * @return true if the office stays open from start to end, otherwise false
+     * */
+    public boolean isValid(Instant start, Instant end){
+        if (end.isBefore(start)) return false;
+
+        long startSecond = start.getEpochSecond();
+        long[] intervals = week(weekOf(startSecond));
+        int i = openingAtOrBefore(intervals, startSecond);
+        return i >= 0 && end.getEpochSecond() <= intervals[i + 1];
+    }
+
+    /**
+     * @param start start of the meeting in the system default zone
+     * @param end end of the meeting in the system default zone
+     * @return true if the office stays open from start to end, otherwise false
+     * */
+    public boolean isValid(LocalDateTime start, LocalDateTime end){
+        return isValid(toInstant(start), toInstant(end));
+    }
+
+    /**
+     * @param from the earliest start
+     * @param length length of the meeting
+     * @return the first start at or after from that the office stays open for length,
+     * or null if there is none within a year
+     * */
+    public Instant nextValidStart(Instant from, Duration length){
+        long fromSecond = from.getEpochSecond();
+        long lengthSeconds = Math.max(0, length.getSeconds() + (length.getNano() > 0 ? 1 : 0));
+        long week = weekOf(fromSecond);
+        for (int searched = 0; searched < maxWeeksSearched; ++searched, ++week){
+            long[] intervals = week(week);
+            int i = Math.max(0, openingAtOrBefore(intervals, fromSecond));
+            for (; i < intervals.length; i += 2){
+                long start = Math.max(intervals[i], fromSecond);
+                if (intervals[i + 1] - start >= lengthSeconds) {
+                    return start == fromSecond ? from : Instant.ofEpochSecond(start);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param from the earliest start in the system default zone
+     * @param length length of the meeting
+     * @return the first start at or after from that the office stays open for length in the system
+     * default zone, or null if there is none within a year
+     * */
+    public LocalDateTime nextValidStart(LocalDateTime from, Duration length){
+        Instant start = nextValidStart(toInstant(from), length);
+        return start == null ? null : LocalDateTime.ofInstant(start, ZoneId.systemDefault());
+    }
+
+    private static Instant toInstant(LocalDateTime dateTime){
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant();
+    }
+
+    private static long weekOf(long epochSecond){
+        return Math.floorDiv(epochSecond + weekShift, secondsPerWeek);
+    }
+
+    /**
+     * @return index of the last opening at or before second, or -1 if there is none
+     * */
+    private static int openingAtOrBefore(long[] intervals, long second){
+        int low = 0;
+        int high = intervals.length / 2 - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (intervals[mid * 2] <= second) {
+                found = mid * 2;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    private long[] week(long week){
+        long[] intervals = weeks.get(week);
+        if (intervals == null) {
+            if (weeks.size() >= maxCachedWeeks) {
+                weeks.clear();
+            }
+            intervals = compile(week);
+            weeks.put(week, intervals);
+        }
+        return intervals;
+    }
+
+    /**
+     * Compiles the openings that overlap a UTC week, including any that start or end in a neighbouring week.
+     * */
+    private long[] compile(long week){
+        long weekStart = week * secondsPerWeek - weekShift;
+        long weekEnd = weekStart + secondsPerWeek;
+        LocalDate first = LocalDate.ofEpochDay(Math.floorDiv(weekStart, secondsPerDay)).minusDays(2);
+        LocalDate last = LocalDate.ofEpochDay(Math.floorDiv(weekEnd, secondsPerDay)).plusDays(1);
+
+        List<long[]> openings = new ArrayList<>();
+        for (LocalDate date = first; !date.isAfter(last); date = date.plusDays(1)){
+            if (!days.contains(date.getDayOfWeek())) continue;
+
+            long openSecond = ZonedDateTime.of(date, open, zoneID).toEpochSecond();
+            LocalDate closeDate = close.isAfter(open) ? date : date.plusDays(1);
+            long closeSecond = ZonedDateTime.of(closeDate, close, zoneID).toEpochSecond();
+            if (closeSecond >= weekStart && openSecond < weekEnd) {
+                long[] previous = openings.isEmpty() ? null : openings.get(openings.size() - 1);
+                if (previous != null && openSecond <= previous[1]) {
+                    previous[1] = Math.max(previous[1], closeSecond);
+                } else {
+                    openings.add(new long[]{openSecond, closeSecond});
+                }
+            }
+        }
+
+        long[] intervals = new long[openings.size() * 2];
+        for (int i = 0; i < openings.size(); ++i){
+            intervals[i * 2] = openings.get(i)[0];
+            intervals[i * 2 + 1] = openings.get(i)[1];
+        }
+        return intervals;
+    }
+
+    private static Set<DayOfWeek> weekdays(){
+        return EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY);
+    }
+
+    @Override
+    public String toString(){
+        return name;
+    }
+}
@@ -0,0 +1,156 @@
+/**
+ *
+ * @author Arthur J Amende
+ * */
+package Classes;
+
+import Helper.DataAccessException;
+import Helper.JDBC;
+import Helper.QueryExecutor;
+import Helper.QueryScope;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background job keeping the Directory Cache and the Appointment Store in step with changes
+ * made to the database by other schedulers.
+ * <p>
+ *     Every intervalSeconds only the Customers and Appointments whose Last_Update is at or after the
+ *     previous watermark, less sync.overlapSeconds, are read and merged. The watermark is the latest
+ *     Last_Update the database reported before the read, so clock differences between the database and
+ *     this computer do not matter. A row committed late with an earlier Last_Update than the watermark
+ *     is still read if it is within the overlap, 300 seconds unless overridden with -Dsync.overlapSeconds.
+ *     Rows seen twice are merged twice, which changes nothing. When the number of cached rows differs
+ *     from COUNT(*) in the database, the cached ID numbers are compared with those in the database:
+ *     rows missing from the cache are read by ID number and merged, and cached rows no longer in the
+ *     database are dropped. A cached row is only dropped if its ID number is at or below the highest
+ *     ID number ever seen, read before the ID numbers, so rows added meanwhile are kept.
+ *     Queries run in their own Query Scope, navigating between forms does not cancel them.
+ * </p>
+ * */
+public abstract class ChangeSync {
+    // Seconds between syncs, override with -Dsync.intervalSeconds, 0 disables syncing
+    private static final long intervalSeconds = Long.getLong("sync.intervalSeconds", 30L);
+    private static final long overlapSeconds = Long.getLong("sync.overlapSeconds", 300L);
+
+    // Watermark used when a table is empty, every row added later is newer
+    private static final LocalDateTime emptyWatermark = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private static final Object syncLock = new Object();
+    private static volatile QueryScope scope = new QueryScope("Sync");
+    private static ScheduledExecutorService executor;
+    private static LocalDateTime customersWatermark;
+    private static LocalDateTime appointmentsWatermark;
+    // Highest ID numbers the database has issued, never lowered when the newest row is deleted
+    private static int customersHighWater;
+    private static int appointmentsHighWater;
+
+    /**
+     * Records the watermarks, loads the Appointment Store, and then syncs every intervalSeconds,
+     * unless syncing is disabled or already started. The watermarks are read before the store is loaded,
+     * so every change the load misses is read by the first sync. Call before anything else loads the store.
+     * @throws DataAccessException if the database could not be read, syncing is not started
+     * */
+    public static void start(){
+        synchronized (ChangeSync.class) {
+            if (executor != null || intervalSeconds <= 0) return;
+            scope = new QueryScope("Sync");
+        }
+        sync();
+        AppointmentStore.load();
+
+        synchronized (ChangeSync.class) {
+            if (executor != null) return;
+            executor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "change-sync");
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.scheduleWithFixedDelay(ChangeSync::syncQuietly, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Stops syncing and cancels a sync in progress. The next start records new watermarks.
+     * */
+    public static void stop(){
+        synchronized (ChangeSync.class) {
+            if (executor == null) return;
+
+            executor.shutdownNow();
+            scope.cancel();
+            executor = null;
+        }
+        synchronized (syncLock) {
+            customersWatermark = null;
+            appointmentsWatermark = null;
+        }
+    }
+
+    /**
+     * Reads and merges the changes since the previous sync.
+     * The first sync only records the watermarks.
+     * @throws DataAccessException if the database could not be read, nothing read afterwards is merged
+     * */
+    public static void sync(){
+        synchronized (syncLock) {
+            QueryExecutor.inScope(scope, () -> {
+                customersWatermark = syncCustomers(customersWatermark);
+                appointmentsWatermark = syncAppointments(appointmentsWatermark);
+                return null;
+            });
+        }
+    }
+
+    private static void syncQuietly(){
+        try {
+            sync();
+        } catch (DataAccessException e){
+//            e.printStackTrace();
+        }
+    }
+
+    private static LocalDateTime syncCustomers(LocalDateTime watermark){
+        LocalDateTime lastUpdate = JDBC.getCustomersLastUpdate();
+        int[] countAndMaxID = JDBC.getCustomerCountAndMaxID();
+        customersHighWater = Math.max(customersHighWater, countAndMaxID[1]);
+        if (watermark != null) {
+            DirectoryCache.mergeCustomers(JDBC.getCustomersUpdatedSince(watermark.minusSeconds(overlapSeconds)));
+            int cached = DirectoryCache.getCustomerCount();
+            if (cached >= 0 && cached != countAndMaxID[0]) {
+                Set<Integer> cachedIDs = DirectoryCache.getCustomerIDs();
+                Set<Integer> customerIDs = JDBC.getCustomerIDs();
+                DirectoryCache.retainCustomers(customerIDs, customersHighWater);
+                if (cachedIDs != null) {
+                    customerIDs.removeAll(cachedIDs);
+                    DirectoryCache.mergeCustomers(JDBC.getCustomersByID(customerIDs));
+                }
+            }
+        }
+        return lastUpdate != null ? lastUpdate : emptyWatermark;
+    }
+
+    private static LocalDateTime syncAppointments(LocalDateTime watermark){
+        LocalDateTime lastUpdate = JDBC.getAppointmentsLastUpdate();
+        int[] countAndMaxID = JDBC.getAppointmentCountAndMaxID();
+        appointmentsHighWater = Math.max(appointmentsHighWater, countAndMaxID[1]);
+        if (watermark != null) {
+            AppointmentStore.merge(JDBC.getAppointmentsUpdatedSince(watermark.minusSeconds(overlapSeconds)));
+            int cached = AppointmentStore.size();
+            if (cached >= 0 && cached != countAndMaxID[0]) {
+                Set<Integer> cachedIDs = AppointmentStore.getAppointmentIDs();
+                Set<Integer> appointmentIDs = JDBC.getAppointmentIDs();
+                AppointmentStore.retain(appointmentIDs, appointmentsHighWater);
+                if (cachedIDs != null) {
+                    appointmentIDs.removeAll(cachedIDs);
+                    AppointmentStore.merge(JDBC.getAppointmentsByID(appointmentIDs));
+                }
+            }
+        }
+        return lastUpdate != null ? lastUpdate : emptyWatermark;
+    }
+}
@@ -0,0 +1,221 @@
+/**
+ *
+ * @author Arthur J Amende
+ * */
+package Helper;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * Unmodifiable ordered list, changed by making a new list that shares every part the change did not touch.
+ * <p>
+ *     Elements are kept in order in chunks of about 512. A change copies only the chunks it adds
+ *     to or removes from, and the array of chunk references; all other chunks are shared with the
+ *     list it was made from. Adding one element to a million copies about 512 elements and 2000
+ *     references instead of a million. Reading by index takes a binary search over the chunk offsets.
+ *     Chunks grown past twice the chunk size are split, chunks shrunk below a quarter of it are joined
+ *     to the chunk before. Elements the comparator finds equal are taken to be the same element.
+ *     Safe to read from any thread, since a list never changes.
+ * </p>
+ * @param <T> the type of element
+ * */
+public final class ChunkedSortedList<T> extends AbstractList<T> implements RandomAccess {
+    private static final int chunkSize = 512;
+
+    private final Comparator<? super T> comparator;
+    private final Object[][] chunks;
+    // Index of the first element of each chunk, and the size last
+    private final int[] offsets;
+
+    private ChunkedSortedList(Comparator<? super T> comparator, Object[][] chunks){
+        this.comparator = comparator;
+        this.chunks = chunks;
+        offsets = new int[chunks.length + 1];
+        for (int i = 0; i < chunks.length; ++i){
+            offsets[i + 1] = offsets[i] + chunks[i].length;
+        }
+    }
+
+    /**
+     * @param sorted the elements, already ordered by comparator
+     * @param comparator the order of the elements
+     * @return a list of the elements of sorted
+     * */
+    public static <T> ChunkedSortedList<T> of(List<? extends T> sorted, Comparator<? super T> comparator){
+        List<Object[]> chunks = new ArrayList<>(sorted.size() / chunkSize + 1);
+        addChunk(chunks, sorted.toArray());
+        return new ChunkedSortedList<>(comparator, chunks.toArray(new Object[0][]));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int index){
+        if (index < 0 || index >= size()) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+
+        int chunk = Arrays.binarySearch(offsets, 0, chunks.length, index);
+        if (chunk < 0) chunk = -chunk - 2;
+        return (T) chunks[chunk][index - offsets[chunk]];
+    }
+
+    @Override
+    public int size(){
+        return offsets[chunks.length];
+    }
+
+    @Override
+    public Iterator<T> iterator(){
+        return new Iterator<T>() {
+            private int chunk;
+            private int index;
+
+            @Override
+            public boolean hasNext(){
+                return chunk < chunks.length;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public T next(){
+                if (chunk >= chunks.length) throw new NoSuchElementException();
+
+                T element = (T) chunks[chunk][index];
+                if (++index == chunks[chunk].length) {
+                    ++chunk;
+                    index = 0;
+                }
+                return element;
+            }
+        };
+    }
+
+    /**
+     * @param element the element to add
+     * @return a list with element added in order
+     * */
+    public ChunkedSortedList<T> with(T element){
+        return changed(Collections.emptyList(), Collections.singletonList(element));
+    }
+
+    /**
+     * @param element the element to remove
+     * @return a list without element, or this list if it does not hold element
+     * */
+    public ChunkedSortedList<T> without(T element){
+        return changed(Collections.singletonList(element), Collections.emptyList());
+    }
+
+    /**
+     * Removes and adds elements in one pass over the chunks, copying only the chunks that change.
+     * @param removed the elements to remove, those not in the list are ignored
+     * @param added the elements to add, after removed are removed
+     * @return the changed list, or this list if nothing changed
+     * */
+    @SuppressWarnings("unchecked")
+    public ChunkedSortedList<T> changed(Collection<? extends T> removed, Collection<? extends T> added){
+        if (removed.isEmpty() && added.isEmpty()) return this;
+
+        List<T> removing = new ArrayList<>(removed);
+        List<T> adding = new ArrayList<>(added);
+        removing.sort(comparator);
+        adding.sort(comparator);
+
+        List<Object[]> changedChunks = new ArrayList<>(chunks.length + 1);
+        boolean changed = false;
+        int r = 0;
+        int a = 0;
+        for (int i = 0; i < chunks.length; ++i){
+            // Elements ordered before the first element of the next chunk belong to this one
+            T next = i + 1 < chunks.length ? (T) chunks[i + 1][0] : null;
+            int removeEnd = r;
+            while (removeEnd < removing.size() && (next == null || comparator.compare(removing.get(removeEnd), next) < 0)) {
+                ++removeEnd;
+            }
+            int addEnd = a;
+            while (addEnd < adding.size() && (next == null || comparator.compare(adding.get(addEnd), next) < 0)) {
+                ++addEnd;
+            }
+
+            Object[] chunk = chunks[i];
+            if (removeEnd > r || addEnd > a) {
+                Object[] merged = merge(chunk, removing.subList(r, removeEnd), adding.subList(a, addEnd));
+                if (merged != chunk) {
+                    chunk = merged;
+                    changed = true;
+                }
+            }
+            if (chunk == chunks[i]) {
+                changedChunks.add(chunk);
+            } else {
+                addChunk(changedChunks, chunk);
+            }
+            r = removeEnd;
+            a = addEnd;
+        }
+        if (chunks.length == 0 && !adding.isEmpty()) {
+            addChunk(changedChunks, adding.toArray());
+            changed = true;
+        }
+        return changed ? new ChunkedSortedList<>(comparator, changedChunks.toArray(new Object[0][])) : this;
+    }
+
+    /**
+     * @return the chunk without removed and with added, both ordered, or chunk itself if nothing was removed or added
+     * */
+    @SuppressWarnings("unchecked")
+    private Object[] merge(Object[] chunk, List<T> removed, List<T> added){
+        Object[] merged = new Object[chunk.length + added.size()];
+        int size = 0;
+        int r = 0;
+        int a = 0;
+        for (Object element : chunk){
+            T current = (T) element;
+            while (a < added.size() && comparator.compare(added.get(a), current) < 0) {
+                merged[size++] = added.get(a++);
+            }
+            while (r < removed.size() && comparator.compare(removed.get(r), current) < 0) {
+                ++r;
+            }
+            if (r < removed.size() && comparator.compare(removed.get(r), current) == 0) {
+                ++r;
+                continue;
+            }
+            merged[size++] = current;
+        }
+        while (a < added.size()) {
+            merged[size++] = added.get(a++);
+        }
+        if (added.isEmpty() && size == chunk.length) return chunk;
+        return size == merged.length ? merged : Arrays.copyOf(merged, size);
+    }
+
+    /**
+     * Appends a changed chunk, dropping it if empty, joining it to the chunk before if small, and splitting it if large.
+     * */
+    private static void addChunk(List<Object[]> chunks, Object[] chunk){
+        if (chunk.length == 0) return;
+        if (chunk.length < chunkSize / 4 && !chunks.isEmpty()) {
+            Object[] previous = chunks.remove(chunks.size() - 1);
+            Object[] joined = Arrays.copyOf(previous, previous.length + chunk.length);
+            System.arraycopy(chunk, 0, joined, previous.length, chunk.length);
+            chunk = joined;
+        }
+        if (chunk.length <= 2 * chunkSize) {
+            chunks.add(chunk);
+            return;
+        }
+        for (int start = 0; start < chunk.length; start += chunkSize){
+            int end = chunk.length - start < 2 * chunkSize ? chunk.length : start + chunkSize;
+            chunks.add(Arrays.copyOfRange(chunk, start, end));
+            if (end == chunk.length) break;
+        }
+    }
+}
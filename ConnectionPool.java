@@ -0,0 +1,193 @@
+/**
+ *
+ * @author Arthur J Amende
+ * */
+package Helper;
+
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.Iterator;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded pool of database connections.
+ * <p>
+ *     At least minSize connections are kept open and idle so a borrow does not have to connect.
+ *     At most maxSize connections are ever open. When all are borrowed, borrow waits up to
+ *     borrowTimeoutMillis before failing. Idle connections are validated before they are handed out.
+ * </p>
+ * */
+public class ConnectionPool {
+    private final String jdbcUrl;
+    private final String userName;
+    private final String password;
+    private final int minSize;
+    private final int maxSize;
+    private final long borrowTimeoutMillis;
+    private final long idleTimeoutMillis;
+
+    private static final int validationTimeoutSeconds = 2;
+    private static final long maintenanceIntervalMillis = 30000;
+
+    private final BlockingDeque<PooledConnection> idleConnections = new LinkedBlockingDeque<>();
+    private final Semaphore permits;
+    private final AtomicInteger openConnections = new AtomicInteger();
+    private final ScheduledExecutorService maintenance;
+    private volatile boolean closed = false;
+
+    /**
+     * Parametrized constructor. Opens minSize connections.
+     * @param jdbcUrl the database URL
+     * @param userName the database user
+     * @param password the database password
+     * @param minSize the number of idle connections kept open
+     * @param maxSize the maximum number of open connections
+     * @param borrowTimeoutMillis the time to wait for a free connection
+     * @param idleTimeoutMillis the time an idle connection above minSize is kept open
+     * */
+    public ConnectionPool(String jdbcUrl, String userName, String password, int minSize, int maxSize, long borrowTimeoutMillis, long idleTimeoutMillis){
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min " + minSize + ", max " + maxSize);
+        }
+        this.jdbcUrl = jdbcUrl;
+        this.userName = userName;
+        this.password = password;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.permits = new Semaphore(maxSize, true);
+
+        fillToMinimum();
+
+        maintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "connection-pool-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        maintenance.scheduleWithFixedDelay(this::maintain, maintenanceIntervalMillis, maintenanceIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection. The most recently returned idle connection is used first.
+     * Close the Pooled Connection to return it.
+     * @return a validated connection
+     * @throws SQLTimeoutException if no connection is free within the borrow timeout
+     * */
+    public PooledConnection borrow() throws SQLException {
+        if (closed) throw new SQLException("Connection pool is closed.");
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLTimeoutException("No database connection available after " + borrowTimeoutMillis + " ms.");
+            }
+        } catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted waiting for a database connection.", e);
+        }
+
+        try {
+            PooledConnection pooledConnection;
+            while ((pooledConnection = idleConnections.pollFirst()) != null) {
+                if (pooledConnection.isValid(validationTimeoutSeconds)) {
+                    pooledConnection.markBorrowed();
+                    return pooledConnection;
+                }
+                discard(pooledConnection);
+            }
+            pooledConnection = open();
+            pooledConnection.markBorrowed();
+            return pooledConnection;
+        } catch (SQLException | RuntimeException e){
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a borrowed connection to the pool.
+     * @param pooledConnection the connection being returned
+     * */
+    void release(PooledConnection pooledConnection){
+        if (closed || !pooledConnection.reset()) {
+            discard(pooledConnection);
+        } else {
+            pooledConnection.markReturned();
+            idleConnections.offerFirst(pooledConnection);
+        }
+        permits.release();
+    }
+
+    /**
+     * Closes all idle connections. Borrowed connections are closed when returned.
+     * */
+    public void close(){
+        closed = true;
+        maintenance.shutdownNow();
+        PooledConnection pooledConnection;
+        while ((pooledConnection = idleConnections.pollFirst()) != null) {
+            discard(pooledConnection);
+        }
+    }
+
+    /**
+     * @return number of open connections, idle and borrowed
+     * */
+    public int getOpenConnections(){
+        return openConnections.get();
+    }
+
+    /**
+     * @return number of idle connections
+     * */
+    public int getIdleConnections(){
+        return idleConnections.size();
+    }
+
+    /**
+     * Closes connections idle longer than the idle timeout while more than minSize are open,
+     * then reopens connections until minSize are open.
+     * */
+    private void maintain(){
+        long cutoff = System.currentTimeMillis() - idleTimeoutMillis;
+        Iterator<PooledConnection> iterator = idleConnections.descendingIterator();
+        while (iterator.hasNext() && openConnections.get() > minSize) {
+            PooledConnection pooledConnection = iterator.next();
+            if (pooledConnection.getLastUsed() < cutoff && idleConnections.removeFirstOccurrence(pooledConnection)) {
+                discard(pooledConnection);
+            }
+        }
+        fillToMinimum();
+    }
+
+    private void fillToMinimum(){
+        while (!closed && openConnections.get() < minSize) {
+            try {
+                PooledConnection pooledConnection = open();
+                idleConnections.offerLast(pooledConnection);
+            } catch (SQLException e){
+//                e.printStackTrace();
+                return;
+            }
+        }
+    }
+
+    private PooledConnection open() throws SQLException {
+        if (openConnections.incrementAndGet() > maxSize) {
+            openConnections.decrementAndGet();
+            throw new SQLException("Connection pool is full.");
+        }
+        try {
+            return new PooledConnection(this, DriverManager.getConnection(jdbcUrl, userName, password));
+        } catch (SQLException e){
+            openConnections.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private void discard(PooledConnection pooledConnection){
+        pooledConnection.closePhysical();
+        openConnections.decrementAndGet();
+    }
+}
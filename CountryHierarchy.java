@@ -0,0 +1,98 @@
+/**
+ *
+ * @author Arthur J Amende
+ * */
+package Classes;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * All Countries and their Divisions, indexed for lookup by ID number or name.
+ * <p>
+ *     Built once from the loaded Countries and never changed afterwards, so it can be shared without copying.
+ *     The lists returned are unmodifiable.
+ * </p>
+ * */
+public class CountryHierarchy {
+    private final ObservableList<Country> allCountries;
+    private final Map<Integer, Country> countriesByID = new HashMap<>();
+    private final Map<String, Country> countriesByName = new HashMap<>();
+    private final Map<Integer, List<Division>> divisionsByCountryID = new HashMap<>();
+    private final Map<Integer, Division> divisionsByID = new HashMap<>();
+    private final Map<Integer, Country> countriesByDivisionID = new HashMap<>();
+
+    /**
+     * Parametrized constructor.
+     * @param countries all Countries with their Divisions
+     * */
+    public CountryHierarchy(List<Country> countries){
+        ObservableList<Country> copies = FXCollections.observableArrayList();
+        for (Country country : countries){
+            Country copy = new Country(country);
+            copies.add(copy);
+            countriesByID.put(copy.getId(), copy);
+            countriesByName.put(copy.getName(), copy);
+
+            List<Division> divisions = copy.getAllDivisions();
+            divisionsByCountryID.put(copy.getId(), Collections.unmodifiableList(divisions));
+            for (Division division : divisions){
+                divisionsByID.put(division.getId(), division);
+                countriesByDivisionID.put(division.getId(), copy);
+            }
+        }
+        allCountries = FXCollections.unmodifiableObservableList(copies);
+    }
+
+    /**
+     * @return all Countries, in the order loaded
+     * */
+    public ObservableList<Country> getAllCountries(){
+        return allCountries;
+    }
+
+    /**
+     * @param countryID Primary Key of the Country
+     * @return the Country, or null if not found
+     * */
+    public Country getCountry(int countryID){
+        return countriesByID.get(countryID);
+    }
+
+    /**
+     * @param countryName name of the Country
+     * @return the Country, or null if not found
+     * */
+    public Country getCountry(String countryName){
+        return countriesByName.get(countryName);
+    }
+
+    /**
+     * @param countryID Primary Key of the Country
+     * @return the Divisions of the Country in the order loaded, empty if the Country is not found
+     * */
+    public List<Division> getDivisions(int countryID){
+        return divisionsByCountryID.getOrDefault(countryID, Collections.emptyList());
+    }
+
+    /**
+     * @param divisionID Primary Key of the Division
+     * @return the Division, or null if not found
+     * */
+    public Division getDivision(int divisionID){
+        return divisionsByID.get(divisionID);
+    }
+
+    /**
+     * @param divisionID Primary Key of the Division
+     * @return the Country the Division belongs to, or null if not found
+     * */
+    public Country getCountryOfDivision(int divisionID){
+        return countriesByDivisionID.get(divisionID);
+    }
+}
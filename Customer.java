@@ -4,8 +4,6 @@
  * */
 package Classes;
 
-import Helper.JDBC;
-
 /** Extended from Individual Class, includes Address, Postal Code, Phone Number, and country division.
  * */
 public class Customer extends Individual{
@@ -13,6 +11,8 @@ public class Customer extends Individual{
     private String postalCode;
     private String phoneNum;
     private int divisionID;
+    private String division;
+    private String country;
 
     /**
      * Parametrized constructor.
@@ -41,6 +41,8 @@ public class Customer extends Individual{
         this.postalCode = customerToCopy.postalCode;
         this.phoneNum = customerToCopy.phoneNum;
         this.divisionID = customerToCopy.divisionID;
+        this.division = customerToCopy.division;
+        this.country = customerToCopy.country;
     }
 
     /** Dummy Constructor.
@@ -80,9 +82,27 @@ public class Customer extends Individual{
      * @param divisionID the divisionID to set
      */
     public void setDivisionID(int divisionID) {
+        if (this.divisionID != divisionID) {
+            division = null;
+            country = null;
+        }
         this.divisionID = divisionID;
     }
 
+    /**
+     * @param division the division name to set, as loaded with the Customer
+     */
+    public void setDivision(String division) {
+        this.division = division;
+    }
+
+    /**
+     * @param country the country name to set, as loaded with the Customer
+     */
+    public void setCountry(String country) {
+        this.country = country;
+    }
+
     /**
      * @return the address
      */
@@ -112,16 +132,24 @@ public class Customer extends Individual{
     }
 
     /**
-     * @return the divisionID
+     * @return the division name, looked up in the cached Country Hierarchy only if it was not loaded with the Customer
      */
     public String getDivision(){
-        return JDBC.getDivisionName(divisionID);
+        if (division == null) {
+            Division found = DirectoryCache.getCountryHierarchy().getDivision(divisionID);
+            division = found != null ? found.getName() : new Division().getName();
+        }
+        return division;
     }
 
     /**
-     * @return the divisionID
+     * @return the country name, looked up in the cached Country Hierarchy only if it was not loaded with the Customer
      */
     public String getCountry(){
-        return JDBC.getCountryName(divisionID);
+        if (country == null) {
+            Country found = DirectoryCache.getCountryHierarchy().getCountryOfDivision(divisionID);
+            country = found != null ? found.getName() : new Country().getName();
+        }
+        return country;
     }
 }
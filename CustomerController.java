@@ -4,9 +4,12 @@
  * */
 package Controllers;
 
+import Classes.Country;
+import Classes.CountryHierarchy;
 import Classes.Customer;
 import Classes.Directory;
 import Classes.Division;
+import Helper.QueryExecutor;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
@@ -42,6 +45,7 @@ public class CustomerController implements Initializable {
     public ComboBox<String> comboDivision;
 
     private Directory directory = null;
+    private CountryHierarchy countryHierarchy = null;
 
     /**
      * Initializes the Customer Form.
@@ -50,11 +54,12 @@ public class CustomerController implements Initializable {
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
         directory = new Directory();
+        countryHierarchy = directory.getCountryHierarchy();
 
         ObservableList<String> countryNames = FXCollections.observableArrayList();
 
         //Lambda Expression
-        directory.getAllCountries().forEach((n) -> countryNames.add(n.getName()));
+        countryHierarchy.getAllCountries().forEach((n) -> countryNames.add(n.getName()));
         comboCountry.getItems().addAll(countryNames);
 
         labelError.setVisible(false);
@@ -161,9 +166,9 @@ public class CustomerController implements Initializable {
             newCustomer.setPostalCode(postalCode);
             newCustomer.setPhoneNum(phoneNum);
 
-            int countryIndex = comboCountry.getItems().indexOf(comboCountry.getValue());
+            Country country = countryHierarchy.getCountry(comboCountry.getValue());
             int divisionIndex = comboDivision.getItems().indexOf(comboDivision.getValue());
-            int divisionID = directory.getAllCountries().get(countryIndex).getAllDivisions().get(divisionIndex).getId();
+            int divisionID = countryHierarchy.getDivisions(country.getId()).get(divisionIndex).getId();
             newCustomer.setDivisionID(divisionID);
 
             if (mode == MODE.ADD) {
@@ -202,6 +207,7 @@ public class CustomerController implements Initializable {
      * */
     private void goToAllCustomers(ActionEvent actionEvent) {
         try {
+            QueryExecutor.newScreenScope("Customers");
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/Forms/AllCustomers.fxml"));
             Parent root = loader.load();
 
@@ -222,10 +228,12 @@ public class CustomerController implements Initializable {
      * Populates the Division combo box when a Country is selected.
      * */
     public void onCountrySelected(ActionEvent actionEvent) {
-        int countryIndex = comboCountry.getItems().indexOf(comboCountry.getValue());
+        Country country = countryHierarchy.getCountry(comboCountry.getValue());
         ObservableList<String> divisionNames = FXCollections.observableArrayList();
-        for (Division division : directory.getAllCountries().get(countryIndex).getAllDivisions()){
-            divisionNames.add(division.getName());
+        if (country != null) {
+            for (Division division : countryHierarchy.getDivisions(country.getId())){
+                divisionNames.add(division.getName());
+            }
         }
         comboDivision.getItems().clear();
         comboDivision.getItems().addAll(divisionNames);
@@ -0,0 +1,67 @@
+/**
+ *
+ * @author Arthur J Amende
+ * */
+package Helper;
+
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientConnectionException;
+
+/**
+ * Thrown when a database operation fails. The Kind tells the caller why.
+ * */
+public class DataAccessException extends RuntimeException {
+    /** Why a database operation failed. */
+    public enum Kind {
+        /** No connection to the database could be used. */
+        CONNECTION,
+        /** The query ran longer than its timeout. */
+        TIMEOUT,
+        /** The query was cancelled, e.g. because the user left the form. */
+        CANCELLED,
+        /** The database rejected the query. */
+        QUERY
+    }
+
+    private final Kind kind;
+
+    /**
+     * Parametrized constructor.
+     * @param kind why the operation failed
+     * @param message the detail message
+     * @param cause the underlying exception, may be null
+     * */
+    public DataAccessException(Kind kind, String message, Throwable cause){
+        super(message, cause);
+        this.kind = kind;
+    }
+
+    /**
+     * @param e the SQL Exception thrown by the driver
+     * @param cancelled true if the query's scope was cancelled
+     * @return a Data Access Exception of the matching Kind
+     * */
+    public static DataAccessException from(SQLException e, boolean cancelled){
+        Kind kind;
+        if (cancelled) {
+            kind = Kind.CANCELLED;
+        } else if (e instanceof SQLTimeoutException) {
+            kind = Kind.TIMEOUT;
+        } else if (e instanceof SQLNonTransientConnectionException || e instanceof SQLTransientConnectionException
+                || (e.getSQLState() != null && e.getSQLState().startsWith("08"))) {
+            kind = Kind.CONNECTION;
+        } else {
+            kind = Kind.QUERY;
+        }
+        return new DataAccessException(kind, e.getMessage(), e);
+    }
+
+    /**
+     * @return why the operation failed
+     * */
+    public Kind getKind(){
+        return kind;
+    }
+}
@@ -5,24 +5,22 @@
 package Classes;
 
 import Helper.JDBC;
-import javafx.collections.FXCollections;
+import Helper.WriteResult;
 import javafx.collections.ObservableList;
 
+import java.util.Collection;
+import java.util.List;
+
 /** Directory of all Customers, Users, Contacts, and Countries.
+ * All Directories share the data in the Directory Cache.
  * */
 public class Directory {
-    private ObservableList<Customer> allCustomers;
-    private ObservableList<User> allUsers;
-    private ObservableList<Contact> allContacts;
-
-    private ObservableList<Country> allCountries;
-
-    /** Constructor getting all Customers, Users, Contacts, and Countries from the database. */
+    /**
+     * Constructor getting all Customers, Users, Contacts, and Countries.
+     * Only data not already in the Directory Cache is fetched from the database.
+     * */
     public Directory(){
-        allCustomers = JDBC.getAllCustomers();
-        allUsers = JDBC.getAllUsers();
-        allContacts = JDBC.getAllContacts();
-        allCountries = JDBC.getAllCountries();
+        DirectoryCache.load();
     }
 
     /**
@@ -30,7 +28,34 @@ public class Directory {
      * @return true if added, false if not added
      * */
     public boolean addCustomer(Customer newCustomer){
-        return JDBC.addCustomer(newCustomer);
+        if (JDBC.addCustomer(newCustomer)){
+            DirectoryCache.invalidateCustomers();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Adds all Customers in one transaction. If any Customer fails none are added.
+     * @param newCustomers Customers added to the database
+     * @param chunkSize Customers sent to the database per batch
+     * @return one result per Customer, in the order of newCustomers
+     * */
+    public List<WriteResult> addCustomers(Collection<Customer> newCustomers, int chunkSize){
+        List<WriteResult> results = JDBC.addCustomers(newCustomers, chunkSize);
+        if (results.contains(WriteResult.SUCCESS)) {
+            DirectoryCache.invalidateCustomers();
+        }
+        return results;
+    }
+
+    /**
+     * Adds all Customers in one transaction using the default batch size.
+     * @param newCustomers Customers added to the database
+     * @return one result per Customer, in the order of newCustomers
+     * */
+    public List<WriteResult> addCustomers(Collection<Customer> newCustomers){
+        return addCustomers(newCustomers, JDBC.defaultBatchSize);
     }
 
     /**
@@ -38,16 +63,23 @@ public class Directory {
      * @return true if updated, false if not updated
      * */
     public boolean updateCustomer(Customer updateCustomer){
-        return JDBC.updateCustomer(updateCustomer);
+        if (JDBC.updateCustomer(updateCustomer)){
+            DirectoryCache.invalidateCustomers();
+            return true;
+        }
+        return false;
     }
 
     /**
+     * Deletes the Customer and all of their Appointments from the database.
+     * Only the deleted Customer is removed from the Directory, the other Customers are not reloaded.
      * @param deleteCustomer Customer to be deleted from the database
      * @return true if deleted, false if not deleted
      * */
     public boolean deleteCustomer(Customer deleteCustomer){
         if (JDBC.deleteCustomer(deleteCustomer.getId())){
-            allCustomers = JDBC.getAllCustomers();
+            DirectoryCache.removeCustomer(deleteCustomer.getId());
+            AppointmentStore.removeCustomer(deleteCustomer.getId());
             return true;
         }
         return false;
@@ -58,12 +90,8 @@ public class Directory {
      * @return Customer with matching ID number, if no Customer found returns null
      * */
     public Customer getCustomer(int customerID){
-        for (Customer customer : allCustomers){
-            if (customer.getId() == customerID){
-                return new Customer(customer);
-            }
-        }
-        return null;
+        Customer customer = DirectoryCache.getCustomer(customerID);
+        return customer == null ? null : new Customer(customer);
     }
 
     /**
@@ -71,12 +99,8 @@ public class Directory {
      * @return User with matching ID number, if no User found returns null
      * */
     public User getUser(int userID){
-        for (User user : allUsers){
-            if (user.getId() == userID){
-                return new User(user);
-            }
-        }
-        return null;
+        User user = DirectoryCache.getUser(userID);
+        return user == null ? null : new User(user);
     }
 
     /**
@@ -84,39 +108,49 @@ public class Directory {
      * @return Contact with matching ID number, if no Contact found returns null
      * */
     public Contact getContact(int contactID){
-        for (Contact contact : allContacts){
-            if (contact.getId() == contactID){
-                return new Contact(contact);
-            }
-        }
-        return null;
+        Contact contact = DirectoryCache.getContact(contactID);
+        return contact == null ? null : new Contact(contact);
     }
 
     /**
-     * @return all Customers in Directory
+     * @return the version of the shared Directory data, changes whenever the data changes
+     * */
+    public long getVersion(){
+        return DirectoryCache.getVersion();
+    }
+
+    /**
+     * @return all Customers in Directory, an unmodifiable snapshot that does not change
      * */
     public ObservableList<Customer> getAllCustomers(){
-        return FXCollections.observableArrayList(allCustomers);
+        return DirectoryCache.getCustomers();
     }
 
     /**
-     * @return all Users in Directory
+     * @return all Users in Directory, an unmodifiable snapshot that does not change
      * */
     public ObservableList<User> getAllUsers(){
-        return FXCollections.observableArrayList(allUsers);
+        return DirectoryCache.getUsers();
     }
 
     /**
-     * @return all Contacts in Directory
+     * @return all Contacts in Directory, an unmodifiable snapshot that does not change
      * */
     public ObservableList<Contact> getAllContacts(){
-        return FXCollections.observableArrayList(allContacts);
+        return DirectoryCache.getContacts();
+    }
+
+    /**
+     * @return all Countries and Divisions in Directory, indexed by ID number and name
+     * */
+    public CountryHierarchy getCountryHierarchy(){
+        return DirectoryCache.getCountryHierarchy();
     }
 
     /**
-     * @return all Countries in Directory
+     * @return all Countries in Directory, an unmodifiable snapshot that does not change
      * */
     public ObservableList<Country> getAllCountries(){
-        return FXCollections.observableArrayList(allCountries);
+        return DirectoryCache.getCountries();
     }
 }
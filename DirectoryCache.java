@@ -0,0 +1,269 @@
+/**
+ *
+ * @author Arthur J Amende
+ * */
+package Classes;
+
+import Helper.IntMap;
+import Helper.JDBC;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Process wide cache of all Customers, Users, Contacts, and Countries shared by every Directory.
+ * <p>
+ *     Each list is loaded from the database the first time it is needed and kept until it is invalidated.
+ *     Lists are handed out as unmodifiable snapshots that never change. A change copies the list and
+ *     publishes the copy, so a snapshot can be read from any thread while the cache is being updated.
+ *     Every change to the cached data increments the version, so a holder of older data can tell it is stale.
+ *     If -Ddirectory.ttlSeconds is set, lists older than that are reloaded on their next use
+ *     to pick up changes made by other applications.
+ * </p>
+ * */
+public abstract class DirectoryCache {
+    private static final long ttlMillis = Long.getLong("directory.ttlSeconds", 0L) * 1000;
+
+    private static final Entry<Customer> customers = new Entry<>(JDBC::getAllCustomers, Customer::getId);
+    private static final Entry<User> users = new Entry<>(JDBC::getAllUsers, User::getId);
+    private static final Entry<Contact> contacts = new Entry<>(JDBC::getAllContacts, Contact::getId);
+    private static final Entry<Country> countries = new Entry<>(JDBC::getAllCountries, Country::getId);
+
+    private static CountryHierarchy countryHierarchy;
+    private static ObservableList<Country> countryHierarchySource;
+
+    private static long version = 0;
+
+    /**
+     * One cached snapshot, its index by ID number, and when it was loaded.
+     * */
+    private static class Entry<T> {
+        private final Supplier<ObservableList<T>> loader;
+        private final ToIntFunction<T> idOf;
+        private ObservableList<T> snapshot;
+        private IntMap<T> byID;
+        private long loadedAt;
+
+        Entry(Supplier<ObservableList<T>> loader, ToIntFunction<T> idOf){
+            this.loader = loader;
+            this.idOf = idOf;
+        }
+
+        ObservableList<T> get(){
+            if (snapshot == null || (ttlMillis > 0 && System.currentTimeMillis() - loadedAt > ttlMillis)) {
+                publish(loader.get());
+                loadedAt = System.currentTimeMillis();
+            }
+            return snapshot;
+        }
+
+        T find(int id){
+            get();
+            return byID.get(id);
+        }
+
+        boolean isLoaded(){
+            return snapshot != null;
+        }
+
+        /**
+         * @return a modifiable copy of the snapshot, publish it to apply changes
+         * */
+        ObservableList<T> copy(){
+            return FXCollections.observableArrayList(snapshot);
+        }
+
+        /**
+         * Replaces the snapshot. list must not be changed afterwards.
+         * */
+        void publish(ObservableList<T> list){
+            IntMap<T> index = new IntMap<>(list.size());
+            list.forEach(n -> index.put(idOf.applyAsInt(n), n));
+            snapshot = FXCollections.unmodifiableObservableList(list);
+            byID = index;
+            ++version;
+        }
+
+        void invalidate(){
+            snapshot = null;
+            byID = null;
+        }
+    }
+
+    /**
+     * @return unmodifiable snapshot of the cached Customers, loading them if needed
+     * */
+    public static synchronized ObservableList<Customer> getCustomers(){
+        return customers.get();
+    }
+
+    /**
+     * @return unmodifiable snapshot of the cached Users, loading them if needed
+     * */
+    public static synchronized ObservableList<User> getUsers(){
+        return users.get();
+    }
+
+    /**
+     * @return unmodifiable snapshot of the cached Contacts, loading them if needed
+     * */
+    public static synchronized ObservableList<Contact> getContacts(){
+        return contacts.get();
+    }
+
+    /**
+     * @param customerID Primary Key of the Customer
+     * @return the cached Customer, or null if not found. Do not modify the Customer.
+     * */
+    public static synchronized Customer getCustomer(int customerID){
+        return customers.find(customerID);
+    }
+
+    /**
+     * @param userID Primary Key of the User
+     * @return the cached User, or null if not found. Do not modify the User.
+     * */
+    public static synchronized User getUser(int userID){
+        return users.find(userID);
+    }
+
+    /**
+     * @param contactID Primary Key of the Contact
+     * @return the cached Contact, or null if not found. Do not modify the Contact.
+     * */
+    public static synchronized Contact getContact(int contactID){
+        return contacts.find(contactID);
+    }
+
+    /**
+     * @return unmodifiable snapshot of the cached Countries, loading them if needed
+     * */
+    public static synchronized ObservableList<Country> getCountries(){
+        return countries.get();
+    }
+
+    /**
+     * @return the cached Countries indexed by ID number and name, rebuilt whenever the Countries are reloaded
+     * */
+    public static synchronized CountryHierarchy getCountryHierarchy(){
+        ObservableList<Country> allCountries = countries.get();
+        if (countryHierarchySource != allCountries) {
+            countryHierarchy = new CountryHierarchy(allCountries);
+            countryHierarchySource = allCountries;
+        }
+        return countryHierarchy;
+    }
+
+    /**
+     * Loads any list not already cached.
+     * */
+    public static synchronized void load(){
+        customers.get();
+        users.get();
+        contacts.get();
+        countries.get();
+    }
+
+    /**
+     * Removes one Customer from the cache without reloading the others.
+     * @param customerID ID number of the deleted Customer
+     * */
+    public static synchronized void removeCustomer(int customerID){
+        if (customers.isLoaded() && customers.find(customerID) != null) {
+            ObservableList<Customer> changed = customers.copy();
+            changed.removeIf(n -> n.getId() == customerID);
+            customers.publish(changed);
+        }
+    }
+
+    /**
+     * Applies Customers changed in the database to the cache, replacing cached Customers with the same ID number.
+     * Does nothing if the Customers are not cached.
+     * @param changedCustomers Customers as read from the database
+     * */
+    public static synchronized void mergeCustomers(Collection<Customer> changedCustomers){
+        if (!customers.isLoaded() || changedCustomers.isEmpty()) return;
+
+        ObservableList<Customer> changed = customers.copy();
+        IntMap<Integer> indexes = new IntMap<>(changed.size());
+        for (int i = 0; i < changed.size(); ++i){
+            indexes.put(changed.get(i).getId(), i);
+        }
+        for (Customer customer : changedCustomers){
+            Integer index = indexes.get(customer.getId());
+            if (index != null) {
+                changed.set(index, customer);
+            } else {
+                indexes.put(customer.getId(), changed.size());
+                changed.add(customer);
+            }
+        }
+        customers.publish(changed);
+    }
+
+    /**
+     * Removes cached Customers no longer in the database.
+     * ID numbers are never reused, so a Customer with an ID number up to highWater existed when
+     * highWater was read. If it is missing from customerIDs it was deleted. Customers with a higher
+     * ID number may have been added after customerIDs was read and are kept.
+     * @param customerIDs ID numbers of all Customers in the database
+     * @param highWater the highest ID number the database had issued before customerIDs was read
+     * */
+    public static synchronized void retainCustomers(Set<Integer> customerIDs, int highWater){
+        if (!customers.isLoaded()) return;
+
+        ObservableList<Customer> changed = customers.copy();
+        if (changed.removeIf(n -> n.getId() <= highWater && !customerIDs.contains(n.getId()))) {
+            customers.publish(changed);
+        }
+    }
+
+    /**
+     * @return ID numbers of the cached Customers, or null if they are not loaded
+     * */
+    public static synchronized Set<Integer> getCustomerIDs(){
+        if (!customers.isLoaded()) return null;
+
+        Set<Integer> customerIDs = new HashSet<>();
+        customers.snapshot.forEach(n -> customerIDs.add(n.getId()));
+        return customerIDs;
+    }
+
+    /**
+     * @return number of cached Customers, or -1 if they are not loaded
+     * */
+    public static synchronized int getCustomerCount(){
+        return customers.isLoaded() ? customers.snapshot.size() : -1;
+    }
+
+    /**
+     * Drops the cached Customers, the next use reloads them.
+     * */
+    public static synchronized void invalidateCustomers(){
+        customers.invalidate();
+        ++version;
+    }
+
+    /**
+     * Drops everything cached, the next use reloads it.
+     * */
+    public static synchronized void invalidate(){
+        customers.invalidate();
+        users.invalidate();
+        contacts.invalidate();
+        countries.invalidate();
+        ++version;
+    }
+
+    /**
+     * @return the version of the cached data, incremented on every load and change
+     * */
+    public static synchronized long getVersion(){
+        return version;
+    }
+}
@@ -0,0 +1,141 @@
+/**
+ *
+ * @author Arthur J Amende
+ * */
+package Helper;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read-through cache of entities by Primary Key.
+ * <p>
+ *     On a miss the entity is loaded from the database and kept. An ID with no matching row
+ *     is cached as well, so repeated lookups of a missing ID do not query again.
+ *     Once maxSize entries are cached the least recently used entry is dropped.
+ * </p>
+ * @param <V> the type of entity cached
+ * */
+public class EntityCache<V> {
+    /**
+     * Loads one entity from the database.
+     * @param <V> the type of entity loaded
+     * */
+    @FunctionalInterface
+    public interface Loader<V> {
+        /**
+         * @param id Primary Key of the entity
+         * @return the entity, or null if there is no matching row
+         * @throws DataAccessException if the query fails
+         * */
+        V load(int id);
+    }
+
+    private static final Object notFound = new Object();
+
+    private final String name;
+    private final Loader<V> loader;
+    private final Map<Integer, Object> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Parametrized constructor.
+     * @param name the name used in statistics
+     * @param maxSize the maximum number of cached entries
+     * @param loader loads an entity on a miss
+     * */
+    public EntityCache(String name, int maxSize, Loader<V> loader){
+        this.name = name;
+        this.loader = loader;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true){
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Object> eldest){
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * @param id Primary Key of the entity
+     * @return the cached entity, loading it on a miss, or null if there is no matching row
+     * @throws DataAccessException if the entity had to be loaded and the query failed, nothing is cached
+     * */
+    @SuppressWarnings("unchecked")
+    public V get(int id){
+        Object entry;
+        synchronized (entries) {
+            entry = entries.get(id);
+        }
+        if (entry != null) {
+            hits.incrementAndGet();
+            return entry == notFound ? null : (V) entry;
+        }
+
+        misses.incrementAndGet();
+        V entity = loader.load(id);
+        synchronized (entries) {
+            entries.put(id, entity == null ? notFound : entity);
+        }
+        return entity;
+    }
+
+    /**
+     * Caches an entity that was loaded elsewhere, e.g. by a query for all rows.
+     * @param id Primary Key of the entity
+     * @param entity the entity
+     * */
+    public void put(int id, V entity){
+        synchronized (entries) {
+            entries.put(id, entity == null ? notFound : entity);
+        }
+    }
+
+    /**
+     * Drops one entity, the next get loads it from the database.
+     * @param id Primary Key of the entity
+     * */
+    public void invalidate(int id){
+        synchronized (entries) {
+            entries.remove(id);
+        }
+    }
+
+    /**
+     * Drops all entities.
+     * */
+    public void invalidateAll(){
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * @return number of lookups answered from the cache
+     * */
+    public long getHits(){
+        return hits.get();
+    }
+
+    /**
+     * @return number of lookups that loaded from the database
+     * */
+    public long getMisses(){
+        return misses.get();
+    }
+
+    /**
+     * @return number of cached entries, including cached misses
+     * */
+    public int size(){
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    @Override
+    public String toString(){
+        return name + " cache: " + size() + " entries, " + getHits() + " hits, " + getMisses() + " misses";
+    }
+}
@@ -0,0 +1,419 @@
+/**
+ *
+ * @author Arthur J Amende
+ * */
+package Helper;
+
+import Classes.Appointment;
+import Classes.ReportOne;
+import Classes.ReportThree;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Exports Appointments, Report One, and Report Three to CSV or JSON lines files.
+ * <p>
+ *     Rows are written as they are read, from a streaming database query or from a collection
+ *     already in memory, and are never gathered into a list. Each row is formatted into one reused
+ *     buffer and handed to a Buffered Writer of export.bufferSize characters, 64K unless overridden
+ *     with -Dexport.bufferSize, which writes to the file in batches. Memory stays flat however many rows are exported.
+ *     CSV files have a header row and quote text only when needed. JSON lines files hold one object per row.
+ *     Start and End are written as ISO instants in UTC, e.g. 2021-03-01T14:00:00Z, so a file means the same
+ *     times wherever it is read.
+ * </p>
+ * <p>
+ *     Rows are written to a temporary file next to the file. Only when every row is written is it moved
+ *     over the file, so a failed or cancelled export leaves any earlier file as it was and no partial file.
+ *     Exporting from the database runs in its own Query Scope, navigating between forms does not cancel it.
+ * </p>
+ * */
+public abstract class Exporter {
+    /** File format of an export. */
+    public enum Format {
+        /** Comma separated values with a header row. */
+        CSV,
+        /** One JSON object per line. */
+        JSONL;
+
+        /**
+         * @param file a file chosen to export to
+         * @return JSONL if the file name ends in .jsonl, otherwise CSV
+         * */
+        public static Format of(File file){
+            return file.getName().toLowerCase().endsWith(".jsonl") ? JSONL : CSV;
+        }
+    }
+
+    private static final int bufferSize = Integer.getInteger("export.bufferSize", 1 << 16);
+
+    /**
+     * Columns of an exported table, each with a name and the value of a row.
+     * @param <T> the type of row
+     * */
+    public static class Table<T> {
+        private final List<String> names = new ArrayList<>();
+        private final List<Function<? super T, Object>> values = new ArrayList<>();
+
+        /**
+         * @param name the column name
+         * @param value the value of the column for a row, a Number, Instant, LocalDateTime, String, or null
+         * @return this
+         * */
+        public Table<T> column(String name, Function<? super T, Object> value){
+            names.add(name);
+            values.add(value);
+            return this;
+        }
+    }
+
+    /** Columns of an exported Appointment. */
+    public static final Table<Appointment> appointmentTable = new Table<Appointment>()
+            .column("Appointment_ID", Appointment::getId)
+            .column("Title", Appointment::getTitle)
+            .column("Description", Appointment::getDescription)
+            .column("Location", Appointment::getLocation)
+            .column("Type", Appointment::getType)
+            .column("Start", n -> toInstant(n.getStartDateTimeLocal()))
+            .column("End", n -> toInstant(n.getEndDateTimeLocal()))
+            .column("Customer_ID", Appointment::getCustomerID)
+            .column("User_ID", Appointment::getUserID)
+            .column("Contact_ID", Appointment::getContactID);
+
+    /** Columns of an exported Report One row. */
+    public static final Table<ReportOne> reportOneTable = new Table<ReportOne>()
+            .column("Year", ReportOne::getYear)
+            .column("Month", ReportOne::getMonth)
+            .column("Type", ReportOne::getType)
+            .column("Count", ReportOne::getCount);
+
+    /** Columns of an exported Report Three row. */
+    public static final Table<ReportThree> reportThreeTable = new Table<ReportThree>()
+            .column("Customer_ID", ReportThree::getId)
+            .column("Customer_Name", ReportThree::getCustomerName)
+            .column("Hours", ReportThree::getHours);
+
+    /**
+     * Streams every Appointment from the database to a file.
+     * @param file the file to write, replaced if it exists
+     * @param format the file format
+     * @return number of Appointments exported
+     * @throws IOException if the file could not be written
+     * @throws DataAccessException if the database could not be read
+     * */
+    public static long exportAppointments(File file, Format format) throws IOException {
+        try (RowWriter<Appointment> writer = new RowWriter<>(file, format, appointmentTable)){
+            long count = QueryExecutor.inScope(new QueryScope("Export"), () -> JDBC.forEachAppointment(writer::writeUnchecked));
+            writer.finish();
+            return count;
+        } catch (UncheckedIOException e){
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * @param appointments the Appointments to export, e.g. the Appointment Store's snapshot
+     * @param file the file to write, replaced if it exists
+     * @param format the file format
+     * @return number of Appointments exported
+     * @throws IOException if the file could not be written
+     * */
+    public static long exportAppointments(Iterable<Appointment> appointments, File file, Format format) throws IOException {
+        return export(appointments, appointmentTable, file, format);
+    }
+
+    /**
+     * @param rows the rows of Report One
+     * @param file the file to write, replaced if it exists
+     * @param format the file format
+     * @return number of rows exported
+     * @throws IOException if the file could not be written
+     * */
+    public static long exportReportOne(Iterable<ReportOne> rows, File file, Format format) throws IOException {
+        return export(rows, reportOneTable, file, format);
+    }
+
+    /**
+     * @param rows the rows of Report Three
+     * @param file the file to write, replaced if it exists
+     * @param format the file format
+     * @return number of rows exported
+     * @throws IOException if the file could not be written
+     * */
+    public static long exportReportThree(Iterable<ReportThree> rows, File file, Format format) throws IOException {
+        return export(rows, reportThreeTable, file, format);
+    }
+
+    /**
+     * @param rows the rows to export
+     * @param table the columns of a row
+     * @param file the file to write, replaced if it exists
+     * @param format the file format
+     * @return number of rows exported
+     * @throws IOException if the file could not be written
+     * */
+    public static <T> long export(Iterable<? extends T> rows, Table<T> table, File file, Format format) throws IOException {
+        long count = 0;
+        try (RowWriter<T> writer = new RowWriter<>(file, format, table)){
+            for (T row : rows){
+                writer.write(row);
+                ++count;
+            }
+            writer.finish();
+        }
+        return count;
+    }
+
+    /**
+     * @param dateTime date time in the system default zone
+     * @return the instant, or null if dateTime is null
+     * */
+    private static Instant toInstant(LocalDateTime dateTime){
+        return dateTime == null ? null : dateTime.atZone(ZoneId.systemDefault()).toInstant();
+    }
+
+    /**
+     * Writes rows of one table to a file, one row at a time.
+     * Rows go to a temporary file, moved over the file by finish. Closing without finishing deletes it.
+     * @param <T> the type of row
+     * */
+    public static class RowWriter<T> implements Closeable {
+        private final File file;
+        private final File temporaryFile;
+        private final Writer writer;
+        private final Format format;
+        private final Table<T> table;
+        private final StringBuilder line = new StringBuilder(256);
+        private char[] chars = new char[256];
+
+        private boolean finished;
+
+        /**
+         * Opens a temporary file next to the file and writes the CSV header row.
+         * @param file the file to write, replaced if it exists once finished
+         * @param format the file format
+         * @param table the columns of a row
+         * @throws IOException if the temporary file could not be opened
+         * */
+        public RowWriter(File file, Format format, Table<T> table) throws IOException {
+            this.file = file.getAbsoluteFile();
+            this.temporaryFile = File.createTempFile(this.file.getName() + ".", ".tmp", this.file.getParentFile());
+            try {
+                this.writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(temporaryFile), StandardCharsets.UTF_8), bufferSize);
+            } catch (IOException e){
+                Files.deleteIfExists(temporaryFile.toPath());
+                throw e;
+            }
+            this.format = format;
+            this.table = table;
+            if (format == Format.CSV) {
+                for (int i = 0; i < table.names.size(); ++i){
+                    if (i > 0) line.append(',');
+                    appendCSV(table.names.get(i));
+                }
+                endLine();
+            }
+        }
+
+        /**
+         * @param row the row to write
+         * @throws IOException if the file could not be written
+         * */
+        public void write(T row) throws IOException {
+            for (int i = 0; i < table.names.size(); ++i){
+                Object value = table.values.get(i).apply(row);
+                if (format == Format.CSV) {
+                    if (i > 0) line.append(',');
+                    appendCSV(value);
+                } else {
+                    line.append(i == 0 ? '{' : ',');
+                    appendJSON(table.names.get(i));
+                    line.append(':');
+                    appendJSON(value);
+                }
+            }
+            if (format == Format.JSONL) line.append('}');
+            endLine();
+        }
+
+        /**
+         * For callbacks that can not throw IOException.
+         * @param row the row to write
+         * @throws UncheckedIOException if the file could not be written
+         * */
+        public void writeUnchecked(T row){
+            try {
+                write(row);
+            } catch (IOException e){
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Closes the temporary file and moves it over the file.
+         * @throws IOException if the file could not be written or replaced
+         * */
+        public void finish() throws IOException {
+            writer.close();
+            try {
+                Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e){
+                Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            finished = true;
+        }
+
+        /**
+         * Closes the temporary file, deleting it unless finished.
+         * @throws IOException if the file could not be closed
+         * */
+        @Override
+        public void close() throws IOException {
+            if (finished) return;
+            try {
+                writer.close();
+            } finally {
+                Files.deleteIfExists(temporaryFile.toPath());
+            }
+        }
+
+        private void endLine() throws IOException {
+            line.append('\n');
+            // Writer.append would copy the line into a new String
+            if (chars.length < line.length()) {
+                chars = new char[line.capacity()];
+            }
+            line.getChars(0, line.length(), chars, 0);
+            writer.write(chars, 0, line.length());
+            line.setLength(0);
+        }
+
+        private void appendCSV(Object value){
+            if (value == null) return;
+            if (!(value instanceof CharSequence)) {
+                appendPlain(value);
+                return;
+            }
+            CharSequence text = (CharSequence) value;
+            boolean quote = false;
+            for (int i = 0; i < text.length() && !quote; ++i){
+                char c = text.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                line.append(text);
+                return;
+            }
+            line.append('"');
+            for (int i = 0; i < text.length(); ++i){
+                char c = text.charAt(i);
+                if (c == '"') line.append('"');
+                line.append(c);
+            }
+            line.append('"');
+        }
+
+        private void appendJSON(Object value){
+            if (value == null) {
+                line.append("null");
+                return;
+            }
+            if (value instanceof Number) {
+                appendPlain(value);
+                return;
+            }
+            line.append('"');
+            if (value instanceof LocalDateTime || value instanceof Instant) {
+                appendPlain(value);
+            } else {
+                CharSequence text = value instanceof CharSequence ? (CharSequence) value : value.toString();
+                // Most text needs no escaping and is copied at once
+                int first = 0;
+                while (first < text.length() && text.charAt(first) >= 0x20 && text.charAt(first) != '"' && text.charAt(first) != '\\') {
+                    ++first;
+                }
+                line.append(text, 0, first);
+                for (int i = first; i < text.length(); ++i){
+                    char c = text.charAt(i);
+                    switch (c) {
+                        case '"': line.append("\\\""); break;
+                        case '\\': line.append("\\\\"); break;
+                        case '\n': line.append("\\n"); break;
+                        case '\r': line.append("\\r"); break;
+                        case '\t': line.append("\\t"); break;
+                        default:
+                            if (c < 0x20) {
+                                line.append("\\u00").append(Character.forDigit(c >> 4, 16)).append(Character.forDigit(c & 0xF, 16));
+                            } else {
+                                line.append(c);
+                            }
+                    }
+                }
+            }
+            line.append('"');
+        }
+
+        /**
+         * Appends numbers and times without creating strings.
+         * */
+        private void appendPlain(Object value){
+            if (value instanceof Integer) {
+                line.append((int) (Integer) value);
+            } else if (value instanceof Long) {
+                line.append((long) (Long) value);
+            } else if (value instanceof Double) {
+                line.append((double) (Double) value);
+            } else if (value instanceof LocalDateTime) {
+                appendDateTime((LocalDateTime) value);
+            } else if (value instanceof Instant) {
+                Instant instant = (Instant) value;
+                appendDateTime(LocalDateTime.ofEpochSecond(instant.getEpochSecond(), 0, ZoneOffset.UTC));
+                line.append('Z');
+            } else {
+                line.append(value);
+            }
+        }
+
+        /**
+         * Appends yyyy-MM-ddTHH:mm:ss, to the second.
+         * */
+        private void appendDateTime(LocalDateTime dateTime){
+            int year = dateTime.getYear();
+            if (year < 1000 || year > 9999) {
+                line.append(dateTime);
+                return;
+            }
+            line.append(year).append('-');
+            appendTwoDigits(dateTime.getMonthValue());
+            line.append('-');
+            appendTwoDigits(dateTime.getDayOfMonth());
+            line.append('T');
+            appendTwoDigits(dateTime.getHour());
+            line.append(':');
+            appendTwoDigits(dateTime.getMinute());
+            line.append(':');
+            appendTwoDigits(dateTime.getSecond());
+        }
+
+        private void appendTwoDigits(int value){
+            line.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+        }
+    }
+}
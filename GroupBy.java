@@ -0,0 +1,236 @@
+/**
+ *
+ * @author Arthur J Amende
+ * */
+package Helper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Groups rows by a key and totals measures for each group, in one pass over the rows.
+ * <p>
+ *     Groups are kept in a hash table, so adding a row takes constant time however many groups
+ *     there are. Each group holds one long total per measure, in the order the measures were given,
+ *     followed by the number of its rows, which is not listed with the totals. A group is dropped only
+ *     when its last row is removed, so a group whose totals sum to zero is still listed.
+ *     Groups are listed in the order their first row was added. Not synchronized.
+ * </p>
+ * <p>
+ *     Large lists can be grouped in parallel. The list is split into chunks on a fork/join pool,
+ *     each chunk is grouped into its own Group By, and the partial Group Bys are merged in list order.
+ *     Totals are longs, so the merged totals and group order are exactly those of grouping the list in one pass.
+ * </p>
+ * @param <T> the type of row
+ * @param <K> the type of key, a Group Key for keys of several columns
+ * */
+public class GroupBy<T, K> {
+    // Smallest chunk grouped by one task, see Classes.ReportsBenchmark in bench/
+    private static final int minChunkSize = 10_000;
+
+    private final Function<? super T, ? extends K> keyOf;
+    private final List<ToLongFunction<? super T>> measures;
+    // Totals of each group in measure order, then its row count
+    private final LinkedHashMap<K, long[]> groups = new LinkedHashMap<>();
+
+    /**
+     * @param keyOf maps a row to its group
+     * @param measures the measures totalled for each group
+     * */
+    @SafeVarargs
+    public GroupBy(Function<? super T, ? extends K> keyOf, ToLongFunction<? super T>... measures){
+        this.keyOf = keyOf;
+        this.measures = new ArrayList<>(Arrays.asList(measures));
+    }
+
+    /**
+     * @return a measure counting rows
+     * */
+    public static <T> ToLongFunction<T> count(){
+        return n -> 1L;
+    }
+
+    /**
+     * @param value the value of a row
+     * @return a measure summing value over rows
+     * */
+    public static <T> ToLongFunction<T> sum(ToLongFunction<? super T> value){
+        return value::applyAsLong;
+    }
+
+    /**
+     * @param row the row to add to its group
+     * @return this
+     * */
+    public GroupBy<T, K> add(T row){
+        K key = keyOf.apply(row);
+        long[] totals = groups.get(key);
+        if (totals == null) {
+            totals = new long[measures.size() + 1];
+            groups.put(key, totals);
+        }
+        for (int i = 0; i < measures.size(); ++i){
+            totals[i] += measures.get(i).applyAsLong(row);
+        }
+        ++totals[measures.size()];
+        return this;
+    }
+
+    /**
+     * Takes a row back out of its group, so the totals can follow changes to the rows.
+     * A group is dropped once its last row is removed.
+     * @param row the row to remove from its group, as it was added
+     * @return this
+     * */
+    public GroupBy<T, K> remove(T row){
+        K key = keyOf.apply(row);
+        long[] totals = groups.get(key);
+        if (totals == null) return this;
+
+        for (int i = 0; i < measures.size(); ++i){
+            totals[i] -= measures.get(i).applyAsLong(row);
+        }
+        if (--totals[measures.size()] <= 0) {
+            groups.remove(key);
+        }
+        return this;
+    }
+
+    /**
+     * @param rows the rows to add to their groups
+     * @return this
+     * */
+    public GroupBy<T, K> addAll(Iterable<? extends T> rows){
+        for (T row : rows){
+            add(row);
+        }
+        return this;
+    }
+
+    /**
+     * Adds the totals of another Group By with the same measures. Groups new to this one are listed
+     * after this one's groups, in the other's order.
+     * @param other the Group By to merge, unchanged
+     * @return this
+     * */
+    public GroupBy<T, K> merge(GroupBy<T, K> other){
+        if (other.measures.size() != measures.size()) throw new IllegalArgumentException("Group Bys must have the same measures.");
+
+        for (Map.Entry<K, long[]> group : other.groups.entrySet()){
+            long[] totals = groups.get(group.getKey());
+            if (totals == null) {
+                groups.put(group.getKey(), group.getValue().clone());
+            } else {
+                for (int i = 0; i < totals.length; ++i){
+                    totals[i] += group.getValue()[i];
+                }
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Groups rows in parallel, giving the same groups, totals, and order as adding them in one pass.
+     * @param rows the rows to group
+     * @param newGroupBy creates an empty Group By for each chunk, all with the same key and measures
+     * @param pool the pool grouping the chunks
+     * @return the merged Group By
+     * */
+    public static <T, K> GroupBy<T, K> parallel(List<? extends T> rows, Supplier<GroupBy<T, K>> newGroupBy, ForkJoinPool pool){
+        return parallel(rows, newGroupBy, pool, minChunkSize);
+    }
+
+    /**
+     * Groups rows in parallel, giving the same groups, totals, and order as adding them in one pass.
+     * @param rows the rows to group
+     * @param newGroupBy creates an empty Group By for each chunk, all with the same key and measures
+     * @param pool the pool grouping the chunks
+     * @param minChunkSize the fewest rows grouped by one task
+     * @return the merged Group By
+     * */
+    public static <T, K> GroupBy<T, K> parallel(List<? extends T> rows, Supplier<GroupBy<T, K>> newGroupBy, ForkJoinPool pool, int minChunkSize){
+        if (minChunkSize < 1) throw new IllegalArgumentException("Invalid chunk size: " + minChunkSize);
+        List<? extends T> indexed = rows instanceof RandomAccess ? rows : new ArrayList<>(rows);
+        int chunkSize = Math.max(minChunkSize, indexed.size() / (pool.getParallelism() * 4) + 1);
+        return pool.invoke(new GroupTask<>(indexed, 0, indexed.size(), chunkSize, newGroupBy));
+    }
+
+    /**
+     * Groups rows from start to end, splitting in halves until a chunk is small enough.
+     * */
+    private static class GroupTask<T, K> extends RecursiveTask<GroupBy<T, K>> {
+        private final List<? extends T> rows;
+        private final int start;
+        private final int end;
+        private final int chunkSize;
+        private final Supplier<GroupBy<T, K>> newGroupBy;
+
+        private GroupTask(List<? extends T> rows, int start, int end, int chunkSize, Supplier<GroupBy<T, K>> newGroupBy){
+            this.rows = rows;
+            this.start = start;
+            this.end = end;
+            this.chunkSize = chunkSize;
+            this.newGroupBy = newGroupBy;
+        }
+
+        @Override
+        protected GroupBy<T, K> compute(){
+            if (end - start <= chunkSize) {
+                GroupBy<T, K> groupBy = newGroupBy.get();
+                for (int i = start; i < end; ++i){
+                    groupBy.add(rows.get(i));
+                }
+                return groupBy;
+            }
+            int middle = (start + end) >>> 1;
+            GroupTask<T, K> right = new GroupTask<>(rows, middle, end, chunkSize, newGroupBy);
+            right.fork();
+            GroupBy<T, K> left = new GroupTask<>(rows, start, middle, chunkSize, newGroupBy).compute();
+            return left.merge(right.join());
+        }
+    }
+
+    /**
+     * @param key the key of a group
+     * @return the totals of the group in measure order, or null if no row has the key
+     * */
+    public long[] get(K key){
+        long[] totals = groups.get(key);
+        return totals == null ? null : Arrays.copyOf(totals, measures.size());
+    }
+
+    /**
+     * @param key the key of a group
+     * @return number of rows in the group, 0 if no row has the key
+     * */
+    public long getRowCount(K key){
+        long[] totals = groups.get(key);
+        return totals == null ? 0 : totals[measures.size()];
+    }
+
+    /**
+     * @return copy of every group's key and totals in measure order, in the order the groups were first seen
+     * */
+    public Map<K, long[]> getGroups(){
+        Map<K, long[]> copy = new LinkedHashMap<>(groups.size() * 4 / 3 + 1);
+        groups.forEach((key, totals) -> copy.put(key, Arrays.copyOf(totals, measures.size())));
+        return Collections.unmodifiableMap(copy);
+    }
+
+    /**
+     * @return number of groups
+     * */
+    public int size(){
+        return groups.size();
+    }
+}
@@ -0,0 +1,70 @@
+/**
+ *
+ * @author Arthur J Amende
+ * */
+package Helper;
+
+import java.util.Arrays;
+
+/**
+ * Immutable key made of several values, used to group rows by more than one column.
+ * The hash is computed once, so looking a key up in a hash table does not rehash its parts.
+ * */
+public final class GroupKey {
+    private final Object[] parts;
+    private final int hash;
+
+    private GroupKey(Object[] parts){
+        this.parts = parts;
+        this.hash = Arrays.hashCode(parts);
+    }
+
+    /**
+     * @param parts the values making up the key, in order
+     * @return a key equal to every other key of equal parts
+     * */
+    public static GroupKey of(Object... parts){
+        return new GroupKey(parts.clone());
+    }
+
+    /**
+     * @param index position of the part
+     * @return the part at index
+     * */
+    public Object get(int index){
+        return parts[index];
+    }
+
+    /**
+     * @param index position of an Integer part
+     * @return the part at index as an int
+     * */
+    public int getInt(int index){
+        return (Integer) parts[index];
+    }
+
+    /**
+     * @return number of parts
+     * */
+    public int size(){
+        return parts.length;
+    }
+
+    @Override
+    public boolean equals(Object o){
+        if (this == o) return true;
+        if (!(o instanceof GroupKey)) return false;
+        GroupKey other = (GroupKey) o;
+        return hash == other.hash && Arrays.equals(parts, other.parts);
+    }
+
+    @Override
+    public int hashCode(){
+        return hash;
+    }
+
+    @Override
+    public String toString(){
+        return Arrays.toString(parts);
+    }
+}
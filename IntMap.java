@@ -0,0 +1,173 @@
+/**
+ *
+ * @author Arthur J Amende
+ * */
+package Helper;
+
+import java.util.Arrays;
+
+/**
+ * Map from int keys to values, without boxing the keys.
+ * <p>
+ *     Keys and values are kept in two arrays using open addressing with linear probing.
+ *     The arrays double when they are more than half full, so a lookup probes only a few slots.
+ *     Removing a key shifts the following entries back instead of leaving a marker.
+ *     Null values are not allowed, a null value marks an empty slot.
+ *     Not synchronized.
+ * </p>
+ * @param <V> the type of value
+ * */
+public class IntMap<V> {
+    private static final int minCapacity = 16;
+
+    private int[] keys;
+    private Object[] values;
+    private int size;
+    private int mask;
+
+    /** Constructor for an empty map. */
+    public IntMap(){
+        this(minCapacity);
+    }
+
+    /**
+     * Constructor for an empty map sized to hold expectedSize entries without growing.
+     * @param expectedSize the number of entries expected
+     * */
+    public IntMap(int expectedSize){
+        int capacity = minCapacity;
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    /**
+     * @param key the key
+     * @return the value for key, or null if key is not in the map
+     * */
+    @SuppressWarnings("unchecked")
+    public V get(int key){
+        for (int i = slot(key); values[i] != null; i = (i + 1) & mask){
+            if (keys[i] == key) {
+                return (V) values[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param key the key
+     * @return true if key is in the map, otherwise false
+     * */
+    public boolean containsKey(int key){
+        return get(key) != null;
+    }
+
+    /**
+     * @param key the key
+     * @param value the value, not null
+     * @return the previous value for key, or null if key was not in the map
+     * */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value){
+        if (value == null) throw new NullPointerException("IntMap does not allow null values.");
+
+        int i = slot(key);
+        for (; values[i] != null; i = (i + 1) & mask){
+            if (keys[i] == key) {
+                V previous = (V) values[i];
+                values[i] = value;
+                return previous;
+            }
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size * 2 > values.length) {
+            grow();
+        }
+        return null;
+    }
+
+    /**
+     * @param key the key
+     * @return the removed value, or null if key was not in the map
+     * */
+    @SuppressWarnings("unchecked")
+    public V remove(int key){
+        int i = slot(key);
+        for (; values[i] != null; i = (i + 1) & mask){
+            if (keys[i] == key) {
+                V previous = (V) values[i];
+                shiftBack(i);
+                --size;
+                return previous;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Removes all entries, keeping the current capacity.
+     * */
+    public void clear(){
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    /**
+     * @return number of entries
+     * */
+    public int size(){
+        return size;
+    }
+
+    /**
+     * Fills the emptied slot with a later entry of the same probe run, repeating until the run ends.
+     * */
+    private void shiftBack(int empty){
+        int i = empty;
+        while (true) {
+            i = (i + 1) & mask;
+            if (values[i] == null) break;
+            int home = slot(keys[i]);
+            // Move the entry back only if its home slot is not between the empty slot and its current slot
+            if (((i - home) & mask) >= ((i - empty) & mask)) {
+                keys[empty] = keys[i];
+                values[empty] = values[i];
+                empty = i;
+            }
+        }
+        values[empty] = null;
+    }
+
+    private void grow(){
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(oldValues.length * 2);
+        for (int i = 0; i < oldValues.length; ++i){
+            if (oldValues[i] != null) {
+                int j = slot(oldKeys[i]);
+                while (values[j] != null) {
+                    j = (j + 1) & mask;
+                }
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity){
+        keys = new int[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Spreads sequential keys, such as auto-increment IDs, across the table.
+     * */
+    private int slot(int key){
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
@@ -11,39 +11,82 @@ import java.io.PrintWriter;
 import java.sql.*;
 import java.time.*;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Abstract Class for accessing SQL database.
+ * All queries run through the QueryExecutor. Methods returning data throw a DataAccessException
+ * if the database cannot answer, methods changing data return false.
  * */
 public abstract class JDBC {
     private static final String protocol = "jdbc";
     private static final String vendor = ":mysql:";
     private static final String location = "//localhost/";
     private static final String databaseName = "client_schedule";
-    private static final String jdbcUrl = protocol + vendor + location + databaseName + "?connectionTimeZone = SERVER"; // LOCAL
+    private static final String jdbcUrl = System.getProperty("db.url", protocol + vendor + location + databaseName + "?connectionTimeZone = SERVER&useServerPrepStmts=true&rewriteBatchedStatements=true"); // LOCAL
     private static final String driver = "com.mysql.cj.jdbc.Driver"; // Driver reference
-    private static final String userName = "sqlUser"; // Username
-    private static final String password = "Passw0rd!"; // Password
-    public static Connection connection;  // Connection Interface
+    private static final String userName = System.getProperty("db.user", "sqlUser"); // Username
+    private static final String password = System.getProperty("db.password", "Passw0rd!"); // Password
+
+    // Connection Pool sizing, override with -Ddb.pool.min, -Ddb.pool.max, -Ddb.pool.timeout
+    private static final int poolMinSize = Integer.getInteger("db.pool.min", 2);
+    private static final int poolMaxSize = Integer.getInteger("db.pool.max", 8);
+    private static final long poolBorrowTimeoutMillis = Long.getLong("db.pool.timeout", 5000L);
+    private static final long poolIdleTimeoutMillis = Long.getLong("db.pool.idle", 300000L);
+    private static ConnectionPool pool;
 
-    private static final DateTimeFormatter zonedDateTimeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss z");
     private static final DateTimeFormatter localDateTimeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
+    // Appointments read per page, override with -Ddb.fetchSize
+    private static final int appointmentFetchSize = Integer.getInteger("db.fetchSize", 1000);
+    // Rows sent per batch by bulk writes, override with -Ddb.batchSize
+    public static final int defaultBatchSize = Integer.getInteger("db.batchSize", 500);
+
     public static User loginUser;
 
     /**
-     * Opens connection to the database.
+     * Opens the Connection Pool to the database.
+     * The database URL, user, and password default to the local MySQL database and can be
+     * overridden with -Ddb.url, -Ddb.user, and -Ddb.password, e.g. to use an embedded database.
      * */
     public static void openConnection(){
         try {
-            Class.forName(driver); // Locate Driver
-            connection = DriverManager.getConnection(jdbcUrl, userName, password); // Reference Connection object
+            if (isMySQL()) {
+                Class.forName(driver); // Locate Driver
+            }
+            pool = new ConnectionPool(jdbcUrl, userName, password, poolMinSize, poolMaxSize, poolBorrowTimeoutMillis, poolIdleTimeoutMillis);
         }
         catch(Exception e) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * @return true if the database URL is a MySQL URL, false for any other database such as an embedded one
+     * */
+    public static boolean isMySQL(){
+        return jdbcUrl.startsWith(protocol + vendor);
+    }
+
+    /**
+     * Borrows a connection from the Connection Pool. Close it to return it to the pool.
+     * @return a validated connection to the database
+     * @throws SQLException if the pool is not open or no connection is free before the timeout
+     * */
+    public static PooledConnection getConnection() throws SQLException {
+        if (pool == null) throw new SQLException("Connection pool is not open.");
+        return pool.borrow();
+    }
+
     /**
      * Checks if user input User ID and Password match user in the database.
      * Only User 1 is valid.
@@ -52,6 +95,7 @@ public abstract class JDBC {
      * */
     public static boolean login(String loginUserName, String loginPassword){
         int userID = 1;
+        userCache.invalidate(userID); // Always check against the current password
         loginUser = getUser(userID);
 
         boolean loggedIn = loginUserName.equals(loginUser.getName()) && loginPassword.equals(loginUser.getPassword());
@@ -91,9 +135,13 @@ public abstract class JDBC {
         return loggedIn;
     }
 
+    /**
+     * Closes the Connection Pool and all idle connections.
+     * */
     public static void closeConnection(){
         try {
-            connection.close();
+            pool.close();
+            pool = null;
         }
         catch(Exception e) {
 //            e.printStackTrace();
@@ -107,221 +155,292 @@ public abstract class JDBC {
         return new User(loginUser);
     }
 
+    private static final String selectCustomers = "SELECT c.Customer_ID, c.Customer_Name, c.Address, c.Postal_Code, c.Phone, c.Division_ID, d.Division, co.Country " +
+            "FROM customers c " +
+            "LEFT JOIN first_level_divisions d ON d.Division_ID = c.Division_ID " +
+            "LEFT JOIN countries co ON co.Country_ID = d.Country_ID";
+    private static final String selectUsers = "SELECT User_ID, User_Name, Password FROM users";
+    private static final String selectContacts = "SELECT Contact_ID, Contact_Name, Email FROM contacts";
+    // Read-through caches of reference data by Primary Key
+    public static final EntityCache<User> userCache = new EntityCache<>("User", 256,
+            id -> QueryExecutor.queryFirst(selectUsers + " WHERE User_ID = ?", JDBC::mapUser, id));
+    public static final EntityCache<Contact> contactCache = new EntityCache<>("Contact", 256,
+            id -> QueryExecutor.queryFirst(selectContacts + " WHERE Contact_ID = ?", JDBC::mapContact, id));
+
+    private static final String selectAppointments = "SELECT " + AppointmentMapper.SELECT_COLUMNS + " FROM appointments";
+
+    private static Customer mapCustomer(ResultSet resultSet) throws SQLException {
+        Customer customer = new Customer();
+        customer.setId(resultSet.getInt("Customer_ID"));
+        customer.setName(resultSet.getString("Customer_Name"));
+        customer.setAddress(resultSet.getString("Address"));
+        customer.setPostalCode(resultSet.getString("Postal_Code"));
+        customer.setPhoneNum(resultSet.getString("Phone"));
+        customer.setDivisionID(resultSet.getInt("Division_ID"));
+        customer.setDivision(resultSet.getString("Division"));
+        customer.setCountry(resultSet.getString("Country"));
+        return customer;
+    }
+
+    private static User mapUser(ResultSet resultSet) throws SQLException {
+        User user = new User();
+        user.setId(resultSet.getInt("User_ID"));
+        user.setName(resultSet.getString("User_Name"));
+        user.setPassword(resultSet.getString("Password"));
+        return user;
+    }
+
+    private static Contact mapContact(ResultSet resultSet) throws SQLException {
+        Contact contact = new Contact();
+        contact.setId(resultSet.getInt("Contact_ID"));
+        contact.setName(resultSet.getString("Contact_Name"));
+        contact.setEmail(resultSet.getString("Email"));
+        return contact;
+    }
+
+    private static Division mapDivision(ResultSet resultSet) throws SQLException {
+        Division division = new Division();
+        division.setId(resultSet.getInt("Division_ID"));
+        division.setName(resultSet.getString("Division"));
+        return division;
+    }
+
+    /**
+     * @param dateTime Appointment time in the system default zone
+     * @return dateTime in UTC formatted for the database
+     * */
+    private static String toDatabaseUTC(ZonedDateTime dateTime){
+        return dateTime.withZoneSameInstant(ZoneId.of("UTC")).toLocalDateTime().format(localDateTimeFormatter);
+    }
+
+    /**
+     * Drops all cached Users and Contacts.
+     * Call after these tables are changed outside of this application.
+     * */
+    public static void invalidateCaches(){
+        userCache.invalidateAll();
+        contactCache.invalidateAll();
+    }
+
+    /**
+     * @return all Customers from database.
+     * */
     public static ObservableList<Customer> getAllCustomers(){
-        ObservableList<Customer> allCustomers = FXCollections.observableArrayList();
-        try{
-            Statement statement = connection.createStatement();
-            ResultSet resultSet = statement.executeQuery("SELECT Customer_ID, Customer_Name, Address, Postal_Code, Phone, Division_ID FROM customers");
-            while(resultSet.next()){
-                Customer nextCustomer = new Customer();
-                nextCustomer.setId(resultSet.getInt("Customer_ID"));
-                nextCustomer.setName(resultSet.getString("Customer_Name"));
-                nextCustomer.setAddress(resultSet.getString("Address"));
-                nextCustomer.setPostalCode(resultSet.getString("Postal_Code"));
-                nextCustomer.setPhoneNum(resultSet.getString("Phone"));
-                nextCustomer.setDivisionID(resultSet.getInt("Division_ID"));
-                allCustomers.add(nextCustomer);
-            }
-        } catch (SQLException e){
-//            e.printStackTrace();
-        }
-        return allCustomers;
+        return QueryExecutor.query(selectCustomers, JDBC::mapCustomer);
     }
 
     /**
      * @return all Users from database.
      * */
     public static ObservableList<User> getAllUsers(){
-        ObservableList<User> allUsers = FXCollections.observableArrayList();
-        try{
-            Statement statement = connection.createStatement();
-            ResultSet resultSet = statement.executeQuery("SELECT User_ID, User_Name, Password FROM users");
-            while(resultSet.next()){
-                User nextUser = new User();
-                nextUser.setId(resultSet.getInt("User_ID"));
-                nextUser.setName(resultSet.getString("User_Name"));
-                nextUser.setPassword(resultSet.getString("Password"));
-                allUsers.add(nextUser);
-            }
-        } catch (SQLException e){
-//            e.printStackTrace();
-        }
+        ObservableList<User> allUsers = QueryExecutor.query(selectUsers, JDBC::mapUser);
+        allUsers.forEach(n -> userCache.put(n.getId(), new User(n)));
         return allUsers;
     }
 
     /**
+     * Cached, only queries the database the first time userID is requested.
      * @param userID Primary Key in User Table
      * @return User with matching Primary Key.
      * */
     public static User getUser(int userID){
-        try{
-            Statement statement = connection.createStatement();
-            ResultSet resultSet = statement.executeQuery("SELECT User_ID, User_Name, Password FROM users WHERE User_ID = " + userID);
-            resultSet.next();
-
-            User user = new User();
-            user.setId(resultSet.getInt("User_ID"));
-            user.setName(resultSet.getString("User_Name"));
-            user.setPassword(resultSet.getString("Password"));
-
-            return user;
-        } catch (SQLException e){
-//            e.printStackTrace();
-        }
-        return null;
+        User user = userCache.get(userID);
+        return user == null ? null : new User(user);
     }
 
     /**
      * @return all Contacts from database.
      * */
     public static ObservableList<Contact> getAllContacts(){
-        ObservableList<Contact> allContacts = FXCollections.observableArrayList();
-        try{
-            Statement statement = connection.createStatement();
-            ResultSet resultSet = statement.executeQuery("SELECT Contact_ID, Contact_Name, Email FROM contacts");
-            while(resultSet.next()){
-                Contact nextContact = new Contact();
-                nextContact.setId(resultSet.getInt("Contact_ID"));
-                nextContact.setName(resultSet.getString("Contact_Name"));
-                nextContact.setEmail(resultSet.getString("Email"));
-                allContacts.add(nextContact);
-            }
-        } catch (SQLException e){
-//            e.printStackTrace();
-        }
+        ObservableList<Contact> allContacts = QueryExecutor.query(selectContacts, JDBC::mapContact);
+        allContacts.forEach(n -> contactCache.put(n.getId(), new Contact(n)));
         return allContacts;
     }
 
     /**
+     * Cached, only queries the database the first time contactID is requested.
      * @param contactID Primary Key in Contact Table
      * @return Contact with matching Primary Key.
      * */
     public static Contact getContact(int contactID){
-        try{
-            Statement statement = connection.createStatement();
-            ResultSet resultSet = statement.executeQuery("SELECT Contact_ID, Contact_Name, Email FROM contacts WHERE Contact_ID = " + contactID);
-            resultSet.next();
-
-            Contact contact = new Contact();
-            contact.setId(resultSet.getInt("Contact_ID"));
-            contact.setName(resultSet.getString("Contact_Name"));
-            contact.setEmail(resultSet.getString("Email"));
-
-            return contact;
-        } catch (SQLException e){
-//            e.printStackTrace();
-        }
-        return null;
+        Contact contact = contactCache.get(contactID);
+        return contact == null ? null : new Contact(contact);
     }
 
+    private static final String selectCountryHierarchy = "SELECT co.Country_ID, co.Country, d.Division_ID, d.Division " +
+            "FROM countries co " +
+            "LEFT JOIN first_level_divisions d ON d.Country_ID = co.Country_ID " +
+            "ORDER BY co.Country_ID, d.Division_ID";
+
     /**
+     * Reads all Countries and their Divisions in one query.
      * @return all Countries from database
      * */
     public static ObservableList<Country> getAllCountries(){
-        ObservableList<Country> allCountries = FXCollections.observableArrayList();
-        try{
-            Statement statement = connection.createStatement();
-            ResultSet resultSet = statement.executeQuery("SELECT Country_ID, Country FROM countries");
-            while(resultSet.next()){
-                Country nextCountry = new Country();
-                nextCountry.setId(resultSet.getInt("Country_ID"));
-                nextCountry.setName(resultSet.getString("Country"));
-                nextCountry.setAllDivisions(getAllDivisions(nextCountry.getId()));
-                allCountries.add(nextCountry);
+        Map<Integer, Country> countries = new LinkedHashMap<>();
+        Map<Integer, ObservableList<Division>> divisions = new HashMap<>();
+        // Rows are grouped into countries as they are read, the mapped rows themselves are not needed
+        QueryExecutor.query(selectCountryHierarchy, resultSet -> {
+            int countryID = resultSet.getInt("Country_ID");
+            Country country = countries.get(countryID);
+            if (country == null) {
+                country = new Country();
+                country.setId(countryID);
+                country.setName(resultSet.getString("Country"));
+                countries.put(countryID, country);
+                divisions.put(countryID, FXCollections.observableArrayList());
             }
-        } catch (SQLException e){
-//            e.printStackTrace();
+            resultSet.getInt("Division_ID");
+            if (!resultSet.wasNull()) {
+                divisions.get(countryID).add(mapDivision(resultSet));
+            }
+            return null;
+        });
+
+        ObservableList<Country> allCountries = FXCollections.observableArrayList();
+        for (Country country : countries.values()){
+            country.setAllDivisions(divisions.get(country.getId()));
+            allCountries.add(country);
         }
         return allCountries;
     }
 
     /**
-     * @param countryID Foreign Key in Divisions Table
-     * @return all divisions from database matching Foreign Key
+     * Reads all Appointments one page at a time, ordered by Start and Appointment_ID.
+     * @return all Appointments from database
      * */
-    public static ObservableList<Division> getAllDivisions(int countryID){
-        ObservableList<Division> allDivisions = FXCollections.observableArrayList();
-        try{
-            Statement statement = connection.createStatement();
-            ResultSet resultSet = statement.executeQuery("SELECT Division_ID, Division FROM first_level_divisions WHERE Country_ID = " + countryID);
-            while(resultSet.next()){
-                Division nextDivision = new Division();
-                nextDivision.setId(resultSet.getInt("Division_ID"));
-                nextDivision.setName(resultSet.getString("Division"));
-                allDivisions.add(nextDivision);
-            }
-        } catch (SQLException e){
-//            e.printStackTrace();
+    public static ObservableList<Appointment> getAllAppointments(){
+        ObservableList<Appointment> allAppointments = FXCollections.observableArrayList();
+        // Keyset is kept as read from the database so no time zone conversion can skip a row
+        AppointmentMapper mapper = new AppointmentMapper();
+        ObservableList<Appointment> page = QueryExecutor.query(selectAppointments + orderByKeyset + " LIMIT ?", appointmentFetchSize, mapper, appointmentFetchSize);
+        allAppointments.addAll(page);
+        while (page.size() == appointmentFetchSize) {
+            int lastID = page.get(page.size() - 1).getId();
+            String lastStart = mapper.getLastStartUTC().format(localDateTimeFormatter);
+            page = QueryExecutor.query(selectAppointments + afterKeyset + orderByKeyset + " LIMIT ?", appointmentFetchSize, mapper,
+                    lastStart, lastStart, lastID, appointmentFetchSize);
+            allAppointments.addAll(page);
         }
-        return allDivisions;
+        return allAppointments;
     }
 
+    private static final String afterKeyset = " WHERE (Start > ? OR (Start = ? AND Appointment_ID > ?))";
+    private static final String orderByKeyset = " ORDER BY Start, Appointment_ID";
+
     /**
-     * @param divisionID Primary Key in Division Table
-     * @return all divisions from database matching Foreign Key, countryID
+     * @return the latest Last_Update of all Customers as stored by the database, null if there are no Customers
      * */
-    public static String getDivisionName(int divisionID){
-        String divisionName = "Dummy Division";
-        try{
-            Statement statement = connection.createStatement();
-            ResultSet resultSet = statement.executeQuery("SELECT Division FROM first_level_divisions WHERE Division_ID = " + divisionID);
-            resultSet.next();
-            divisionName = resultSet.getString("Division");
-        } catch (SQLException e){
-//            e.printStackTrace();
-        }
-        return divisionName;
+    public static LocalDateTime getCustomersLastUpdate(){
+        return QueryExecutor.queryFirst("SELECT MAX(Last_Update) FROM customers", resultSet -> resultSet.getObject(1, LocalDateTime.class));
     }
 
     /**
-     * @param divisionID Primary Key in Division Table
-     * @return Country name of division
+     * @param since Last_Update watermark as returned by getCustomersLastUpdate
+     * @return Customers from database changed at or after since
      * */
-    public static String getCountryName(int divisionID){
-        String countryName = "Dummy Country";
-        try{
-            Statement statement = connection.createStatement();
-            ResultSet resultSet = statement.executeQuery("SELECT Country FROM countries WHERE Country_ID = (SELECT Country_ID FROM first_level_divisions WHERE Division_ID = " + divisionID + ")");
-            resultSet.next();
-            countryName = resultSet.getString("Country");
-        } catch (SQLException e){
-//            e.printStackTrace();
-        }
-        return countryName;
+    public static ObservableList<Customer> getCustomersUpdatedSince(LocalDateTime since){
+        return QueryExecutor.query(selectCustomers + " WHERE c.Last_Update >= ?", JDBC::mapCustomer, since);
     }
 
     /**
-     * @return all Appointments from database
+     * @param customerIDs ID numbers of the Customers to read
+     * @return the Customers from database with those ID numbers, those deleted are left out
      * */
-    public static ObservableList<Appointment> getAllAppointments(){
-        ObservableList<Appointment> allAppointments = FXCollections.observableArrayList();
-        try{
-            Statement statement = connection.createStatement();
-            ResultSet resultSet = statement.executeQuery("SELECT Appointment_ID, Title, Description, Location, Type, Start, End, Customer_ID, User_ID, Contact_ID FROM appointments");
-            while(resultSet.next()){
-                Appointment nextAppointment = new Appointment();
-                nextAppointment.setId(resultSet.getInt("Appointment_ID"));
-                nextAppointment.setTitle(resultSet.getString("Title"));
-                nextAppointment.setDescription(resultSet.getString("Description"));
-                nextAppointment.setLocation(resultSet.getString("Location"));
-                nextAppointment.setType(resultSet.getString("Type"));
-
-                String startDateTime = resultSet.getString("Start") + " UTC";
-                String endDateTime = resultSet.getString("End") + " UTC";
-                ZonedDateTime startZonedDateTime = ZonedDateTime.parse(startDateTime, zonedDateTimeFormatter);
-                ZonedDateTime endZonedDateTime = ZonedDateTime.parse(endDateTime, zonedDateTimeFormatter);
-                nextAppointment.setStartDateTime(startZonedDateTime);
-                nextAppointment.setEndDateTime(endZonedDateTime);
-
-                nextAppointment.setCustomerID(resultSet.getInt("Customer_ID"));
-                nextAppointment.setUserID(resultSet.getInt("User_ID"));
-                nextAppointment.setContactID(resultSet.getInt("Contact_ID"));
-                allAppointments.add(nextAppointment);
+    public static List<Customer> getCustomersByID(Collection<Integer> customerIDs){
+        return queryByID(selectCustomers + " WHERE c.Customer_ID" + inChunk, customerIDs, JDBC::mapCustomer);
+    }
+
+    /**
+     * @return number of Customers and highest Customer ID in database, 0 if there are none
+     * */
+    public static int[] getCustomerCountAndMaxID(){
+        return QueryExecutor.queryFirst("SELECT COUNT(*), COALESCE(MAX(Customer_ID), 0) FROM customers",
+                resultSet -> new int[]{resultSet.getInt(1), resultSet.getInt(2)});
+    }
+
+    /**
+     * @return ID numbers of all Customers in database
+     * */
+    public static Set<Integer> getCustomerIDs(){
+        return new HashSet<>(QueryExecutor.query("SELECT Customer_ID FROM customers", appointmentFetchSize, resultSet -> resultSet.getInt(1)));
+    }
+
+    /**
+     * @return the latest Last_Update of all Appointments as stored by the database, null if there are no Appointments
+     * */
+    public static LocalDateTime getAppointmentsLastUpdate(){
+        return QueryExecutor.queryFirst("SELECT MAX(Last_Update) FROM appointments", resultSet -> resultSet.getObject(1, LocalDateTime.class));
+    }
+
+    /**
+     * @param since Last_Update watermark as returned by getAppointmentsLastUpdate
+     * @return Appointments from database changed at or after since, ordered by Start
+     * */
+    public static ObservableList<Appointment> getAppointmentsUpdatedSince(LocalDateTime since){
+        return QueryExecutor.query(selectAppointments + " WHERE Last_Update >= ?" + orderByKeyset, appointmentFetchSize, new AppointmentMapper(), since);
+    }
+
+    /**
+     * @param appointmentIDs ID numbers of the Appointments to read
+     * @return the Appointments from database with those ID numbers, those deleted are left out
+     * */
+    public static List<Appointment> getAppointmentsByID(Collection<Integer> appointmentIDs){
+        return queryByID(selectAppointments + " WHERE Appointment_ID" + inChunk, appointmentIDs, new AppointmentMapper());
+    }
+
+    // One statement shape for every chunk of ID numbers, the last chunk repeats its last ID number to fill it
+    private static final String inChunk = " IN (" + String.join(", ", Collections.nCopies(defaultBatchSize, "?")) + ")";
+
+    /**
+     * Reads rows by ID number in chunks of defaultBatchSize, all with the same statement.
+     * */
+    private static <T> List<T> queryByID(String sql, Collection<Integer> ids, RowMapper<T> mapper){
+        List<T> rows = new ArrayList<>();
+        List<Integer> remaining = new ArrayList<>(ids);
+        for (int start = 0; start < remaining.size(); start += defaultBatchSize){
+            Object[] chunk = new Object[defaultBatchSize];
+            for (int i = 0; i < defaultBatchSize; ++i){
+                chunk[i] = remaining.get(Math.min(start + i, remaining.size() - 1));
             }
-        } catch (SQLException e){
-//            e.printStackTrace();
+            rows.addAll(QueryExecutor.query(sql, mapper, chunk));
         }
-        return allAppointments;
+        return rows;
+    }
+
+    /**
+     * @return number of Appointments and highest Appointment ID in database, 0 if there are none
+     * */
+    public static int[] getAppointmentCountAndMaxID(){
+        return QueryExecutor.queryFirst("SELECT COUNT(*), COALESCE(MAX(Appointment_ID), 0) FROM appointments",
+                resultSet -> new int[]{resultSet.getInt(1), resultSet.getInt(2)});
+    }
+
+    /**
+     * @return ID numbers of all Appointments in database
+     * */
+    public static Set<Integer> getAppointmentIDs(){
+        return new HashSet<>(QueryExecutor.query("SELECT Appointment_ID FROM appointments", appointmentFetchSize, resultSet -> resultSet.getInt(1)));
+    }
+
+    /**
+     * Streams every Appointment from the database, ordered by Start, without keeping them in memory.
+     * MySQL streams one row at a time, other drivers page with the normal fetch size, which they read incrementally.
+     * @param action called with each Appointment in order, it must not use the database
+     * @return number of Appointments read
+     * */
+    public static long forEachAppointment(Consumer<? super Appointment> action){
+        return QueryExecutor.withTimeout(0, () -> QueryExecutor.forEach(selectAppointments + orderByKeyset,
+                isMySQL() ? QueryExecutor.streamingFetchSize : appointmentFetchSize, new AppointmentMapper(), action));
+    }
+
+    private static final String insertCustomerSQL = "INSERT INTO customers (Customer_Name, Address, Postal_Code, Phone, Create_Date, Created_By, Last_Update, Last_Updated_By, Division_ID) " +
+            "VALUES (?, ?, ?, ?, NOW(), ?, NOW(), ?, ?)";
+
+    private static Object[] insertCustomerParameters(Customer newCustomer){
+        String user = loginUser.getName();
+        return new Object[]{newCustomer.getName(), newCustomer.getAddress(), newCustomer.getPostalCode(), newCustomer.getPhoneNum(),
+                user, user, newCustomer.getDivisionID()};
     }
 
     /**
@@ -329,154 +448,160 @@ public abstract class JDBC {
      * @return true if successfully added to database, otherwise return false.
      * */
     public static boolean addCustomer(Customer newCustomer){
-        try{
-            Statement statement = connection.createStatement();
-            String name = newCustomer.getName();
-            String address = newCustomer.getAddress();
-            String postalCode = newCustomer.getPostalCode();
-            String phoneNum = newCustomer.getPhoneNum();
-            String user = loginUser.getName();
-            int divisionID = newCustomer.getDivisionID();
-            statement.execute("INSERT INTO customers (Customer_Name, Address, Postal_Code, Phone, Create_Date, Created_By, Last_Update, Last_Updated_By, Division_ID) " +
-                    "VALUES('"+name+"', '"+address+"', '"+postalCode+"', '"+phoneNum+"', NOW(), '"+user+"', NOW(), '"+user+"', "+divisionID+")");
-        } catch (SQLException e){
+        try {
+            QueryExecutor.update(insertCustomerSQL, insertCustomerParameters(newCustomer));
+        } catch (DataAccessException e){
 //            e.printStackTrace();
             return false;
         }
         return true;
     }
 
+    /**
+     * Adds all Customers in one transaction, sent in batches of chunkSize.
+     * If any Customer fails none are added.
+     * @param newCustomers Customers to be added to database
+     * @param chunkSize Customers sent per batch
+     * @return one result per Customer, in the order of newCustomers
+     * @throws DataAccessException if no connection is available or the commit fails
+     * */
+    public static List<WriteResult> addCustomers(Collection<Customer> newCustomers, int chunkSize){
+        return QueryExecutor.batch(insertCustomerSQL, newCustomers, chunkSize, JDBC::insertCustomerParameters);
+    }
+
     /**
      * @param updateCustomer Customer to be updated to database
      * @return true if successfully update in database, otherwise return false.
      * */
     public static boolean updateCustomer(Customer updateCustomer){
-        try{
-            Statement statement = connection.createStatement();
-            String name = updateCustomer.getName();
-            String address = updateCustomer.getAddress();
-            String postalCode = updateCustomer.getPostalCode();
-            String phoneNum = updateCustomer.getPhoneNum();
-            String user = loginUser.getName();
-            int divisionID = updateCustomer.getDivisionID();
-            int id = updateCustomer.getId();
-            statement.execute("UPDATE customers SET " +
-                    "Customer_Name = '" + name + "', " +
-                    "Address = '" + address + "', " +
-                    "Postal_Code = '" + postalCode + "', " +
-                    "Phone = '" + phoneNum + "', " +
-                    "Last_Update = NOW(), " +
-                    "Last_Updated_By = '" + user + "', " +
-                    "Division_ID = " + divisionID + " " +
-                    "WHERE Customer_ID = " + id);
-        } catch (SQLException e){
+        try {
+            QueryExecutor.update("UPDATE customers SET Customer_Name = ?, Address = ?, Postal_Code = ?, Phone = ?, " +
+                    "Last_Update = NOW(), Last_Updated_By = ?, Division_ID = ? WHERE Customer_ID = ?",
+                    updateCustomer.getName(), updateCustomer.getAddress(), updateCustomer.getPostalCode(), updateCustomer.getPhoneNum(),
+                    loginUser.getName(), updateCustomer.getDivisionID(), updateCustomer.getId());
+        } catch (DataAccessException e){
 //            e.printStackTrace();
             return false;
         }
         return true;
     }
 
+    private static final String deleteAppointmentChunkSQL = "DELETE FROM appointments WHERE Appointment_ID IN (" +
+            String.join(", ", Collections.nCopies(defaultBatchSize, "?")) + ")";
+
     /**
+     * Deletes the Customer and all of their Appointments in one transaction.
+     * The ID numbers of the Appointments are read first and deleted in full chunks of defaultBatchSize,
+     * so no single statement has to delete a long appointment history at once. The fewer than defaultBatchSize
+     * left over are deleted by Customer_ID. Every chunk uses the same SQL, so one statement is cached for it.
+     * The SQL is standard, so it also runs on an embedded database.
+     * If any delete fails nothing is deleted.
      * @param customerID Customer to be deleted from database
      * @return true if successfully deleted from database, otherwise return false.
      * */
     public static boolean deleteCustomer(int customerID){
-        try{
-            Statement statement = connection.createStatement();
-            statement.execute("DELETE FROM appointments WHERE Customer_ID = " + customerID);
-            statement.execute("DELETE FROM customers WHERE Customer_ID = " + customerID);
-        } catch (SQLException e){
+        try {
+            QueryExecutor.inTransaction(connection -> {
+                List<Integer> appointmentIDs = QueryExecutor.executeQuery(QueryExecutor.prepare(connection,
+                        "SELECT Appointment_ID FROM appointments WHERE Customer_ID = ?", customerID), n -> n.getInt(1));
+                for (int start = 0; start + defaultBatchSize <= appointmentIDs.size(); start += defaultBatchSize){
+                    QueryExecutor.executeUpdate(QueryExecutor.prepare(connection, deleteAppointmentChunkSQL,
+                            appointmentIDs.subList(start, start + defaultBatchSize).toArray()));
+                }
+                // The last partial chunk, and Appointments added since the ID numbers were read
+                QueryExecutor.executeUpdate(QueryExecutor.prepare(connection,
+                        "DELETE FROM appointments WHERE Customer_ID = ?", customerID));
+
+                return QueryExecutor.executeUpdate(QueryExecutor.prepare(connection,
+                        "DELETE FROM customers WHERE Customer_ID = ?", customerID));
+            });
+        } catch (DataAccessException e){
             e.printStackTrace();
             return false;
         }
         return true;
     }
 
+    private static final String insertAppointmentSQL = "INSERT INTO appointments (Title, Description, Location, Type, Start, End, Create_Date, Created_By, Last_Update, Last_Updated_By, Customer_ID, User_ID, Contact_ID) " +
+            "VALUES (?, ?, ?, ?, ?, ?, NOW(), ?, NOW(), ?, ?, ?, ?)";
+    private static final String updateAppointmentSQL = "UPDATE appointments SET Title = ?, Description = ?, Location = ?, Type = ?, Start = ?, End = ?, " +
+            "Last_Update = NOW(), Last_Updated_By = ?, Customer_ID = ?, User_ID = ?, Contact_ID = ? WHERE Appointment_ID = ?";
+
+    private static Object[] insertAppointmentParameters(Appointment newAppointment){
+        String user = loginUser.getName();
+        return new Object[]{newAppointment.getTitle(), newAppointment.getDescription(), newAppointment.getLocation(), newAppointment.getType(),
+                toDatabaseUTC(newAppointment.getStartDateTimeZoned()), toDatabaseUTC(newAppointment.getEndDateTimeZoned()),
+                user, user, newAppointment.getCustomerID(), newAppointment.getUserID(), newAppointment.getContactID()};
+    }
+
+    private static Object[] updateAppointmentParameters(Appointment updateAppointment){
+        return new Object[]{updateAppointment.getTitle(), updateAppointment.getDescription(), updateAppointment.getLocation(), updateAppointment.getType(),
+                toDatabaseUTC(updateAppointment.getStartDateTimeZoned()), toDatabaseUTC(updateAppointment.getEndDateTimeZoned()),
+                loginUser.getName(), updateAppointment.getCustomerID(), updateAppointment.getUserID(), updateAppointment.getContactID(),
+                updateAppointment.getId()};
+    }
+
     /**
+     * On success the ID number of newAppointment is set to the Primary Key generated by the database.
      * @param newAppointment Appointment to be added to database
      * @return true if successfully added to database, otherwise return false.
      * */
     public static boolean addAppointment(Appointment newAppointment){
-        try{
-            Statement statement = connection.createStatement();
-            String title = newAppointment.getTitle();
-            String description = newAppointment.getDescription();
-            String location = newAppointment.getLocation();
-            String type = newAppointment.getType();
-
-            ZonedDateTime startZoned = newAppointment.getStartDateTimeZoned();
-            ZonedDateTime endZoned = newAppointment.getEndDateTimeZoned();
-            startZoned = startZoned.withZoneSameInstant(ZoneId.of("UTC"));
-            endZoned = endZoned.withZoneSameInstant(ZoneId.of("UTC"));
-            String start = startZoned.toLocalDateTime().format(localDateTimeFormatter);
-            String end = endZoned.toLocalDateTime().format(localDateTimeFormatter);
-
-            String user = loginUser.getName();
-            int customerID = newAppointment.getCustomerID();
-            int userID = newAppointment.getUserID();
-            int contactID = newAppointment.getContactID();
-            statement.execute("INSERT INTO appointments (Title, Description, Location, Type, Start, End, Create_Date, Created_By, Last_Update, Last_Updated_By, Customer_ID, User_ID, Contact_ID) " +
-                    "VALUES ('"+title+"', '"+description+"', '"+location+"', '"+type+"', '"+start+"', '"+end+"', NOW(), '"+user+"', NOW(), '"+user+"', "+customerID+", "+userID+", "+contactID+")");
-        } catch (SQLException e){
+        try {
+            newAppointment.setId(QueryExecutor.insert(insertAppointmentSQL, insertAppointmentParameters(newAppointment)));
+        } catch (DataAccessException e){
 //            e.printStackTrace();
             return false;
         }
         return true;
     }
 
+    /**
+     * Adds all Appointments in one transaction, sent in batches of chunkSize.
+     * If any Appointment fails none are added. On success the ID number of each Appointment is set to the one generated by the database.
+     * @param newAppointments Appointments to be added to database
+     * @param chunkSize Appointments sent per batch
+     * @return one result per Appointment, in the order of newAppointments
+     * @throws DataAccessException if no connection is available or the commit fails
+     * */
+    public static List<WriteResult> addAppointments(Collection<Appointment> newAppointments, int chunkSize){
+        return QueryExecutor.batchInsert(insertAppointmentSQL, newAppointments, chunkSize, JDBC::insertAppointmentParameters, Appointment::setId);
+    }
+
     /**
      * @param updateAppointment Appointment to be updated in database
      * @return true if successfully updated in database, otherwise return false.
      * */
     public static boolean updateAppointment(Appointment updateAppointment){
-        try{
-            Statement statement = connection.createStatement();
-            String title = updateAppointment.getTitle();
-            String description = updateAppointment.getDescription();
-            String location = updateAppointment.getLocation();
-            String type = updateAppointment.getType();
-
-            ZonedDateTime startZoned = updateAppointment.getStartDateTimeZoned();
-            ZonedDateTime endZoned = updateAppointment.getEndDateTimeZoned();
-            startZoned = startZoned.withZoneSameInstant(ZoneId.of("UTC"));
-            endZoned = endZoned.withZoneSameInstant(ZoneId.of("UTC"));
-            String start = startZoned.toLocalDateTime().format(localDateTimeFormatter);
-            String end = endZoned.toLocalDateTime().format(localDateTimeFormatter);
-
-            String user = loginUser.getName();
-            int customerID = updateAppointment.getCustomerID();
-            int contactID = updateAppointment.getContactID();
-            int userID = updateAppointment.getUserID();
-            int appointmentID = updateAppointment.getId();
-            statement.execute("UPDATE appointments SET " +
-                    "Title = '"+title+"', " +
-                    "Description = '"+description+"', " +
-                    "Location = '"+location+"', " +
-                    "Type = '"+type+"', " +
-                    "Start = '"+start+"', " +
-                    "End = '"+end+"', " +
-                    "Last_Update = NOW(), " +
-                    "Last_Updated_By = '"+user+"', " +
-                    "Customer_ID = "+customerID+", " +
-                    "User_ID = "+userID+", " +
-                    "Contact_ID = "+contactID+" " +
-                    "WHERE Appointment_ID = "+appointmentID);
-        } catch (SQLException e){
+        try {
+            QueryExecutor.update(updateAppointmentSQL, updateAppointmentParameters(updateAppointment));
+        } catch (DataAccessException e){
 //            e.printStackTrace();
             return false;
         }
         return true;
     }
 
+    /**
+     * Updates all Appointments in one transaction, sent in batches of chunkSize.
+     * If any Appointment fails none are updated.
+     * @param updateAppointments Appointments to be updated in database
+     * @param chunkSize Appointments sent per batch
+     * @return one result per Appointment, in the order of updateAppointments
+     * @throws DataAccessException if no connection is available or the commit fails
+     * */
+    public static List<WriteResult> updateAppointments(Collection<Appointment> updateAppointments, int chunkSize){
+        return QueryExecutor.batch(updateAppointmentSQL, updateAppointments, chunkSize, JDBC::updateAppointmentParameters);
+    }
+
     /**
      * @param appointmentID Appointment to be deleted from database
      * @return true if successfully deleted from database, otherwise return false.
      * */
     public static boolean deleteAppointment(int appointmentID){
-        try{
-            Statement statement = connection.createStatement();
-            statement.execute(" DELETE FROM appointments WHERE Appointment_ID = " + appointmentID);
-        } catch (SQLException e){
+        try {
+            QueryExecutor.update("DELETE FROM appointments WHERE Appointment_ID = ?", appointmentID);
+        } catch (DataAccessException e){
 //            e.printStackTrace();
             return false;
         }
@@ -5,9 +5,13 @@
 package Controllers;
 
 import Classes.Appointment;
-import Classes.AppointmentCalendar;
+import Classes.ChangeSync;
+import Classes.ReminderScheduler;
 import Classes.User;
+import Helper.DataAccessException;
 import Helper.JDBC;
+import Helper.QueryExecutor;
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
@@ -80,13 +84,29 @@ public class MasterController implements Initializable {
     /**
      * Takes the input User ID and Password and checks the database for a match.
      * If login fails a popup is launched in either English or French.
+     * If the database can not be reached a popup informs the User.
      * */
     public void onLogin(ActionEvent actionEvent) {
-        if(JDBC.login(textUserID.getText(), textPassword.getText())){
+        boolean loginValid;
+        try {
+            loginValid = JDBC.login(textUserID.getText(), textPassword.getText());
+        } catch (DataAccessException e){
+            showDatabaseError(e);
+            return;
+        }
+
+        if(loginValid){
             buttonCustomers.setDisable(false);
             buttonAppointments.setDisable(false);
             buttonReports.setDisable(false);
-            showReminders();
+            try {
+                // Before the Appointment Store is loaded, so no change made meanwhile is missed
+                ChangeSync.start();
+                ReminderScheduler.start(JDBC.getLoginUser().getId(), n -> Platform.runLater(() -> showReminder(n)));
+                showReminders();
+            } catch (DataAccessException e){
+                showDatabaseError(e);
+            }
             goToAppointments(actionEvent);
         } else {
             Alert alert = new Alert(Alert.AlertType.ERROR);
@@ -97,6 +117,18 @@ public class MasterController implements Initializable {
         }
     }
 
+    /**
+     * Informs the User that the database could not answer.
+     * @param e the failure
+     * */
+    private void showDatabaseError(DataAccessException e){
+        Alert alert = new Alert(Alert.AlertType.ERROR);
+        alert.setTitle("Database Error");
+        alert.setHeaderText(e.getKind() == DataAccessException.Kind.TIMEOUT ? "The database took too long to respond." : "Could not reach the database.");
+        alert.setContentText("Please check connection to database and restart program.");
+        alert.showAndWait();
+    }
+
     /**
      * Allows user to attempt login by hitting 'Enter' key.
      * */
@@ -107,37 +139,43 @@ public class MasterController implements Initializable {
     }
 
     /**
-     * Determines if the logged in User has an appointment in the next 15 minutes.
+     * Determines if the logged in User has an appointment within the Reminder Scheduler's lead time, 15 minutes by default.
      * If an appointment is found a popup informs the User of the appointment.
      * If no appointment is found a popup informs the User of no upcoming appointments.
+     * The next appointment is read from the Reminder Scheduler's queue for the User.
      * */
     public void showReminders() {
-        AppointmentCalendar appointmentCalendar = new AppointmentCalendar();
         Appointment nextAppointment = null;
         User loginUser = JDBC.getLoginUser();
 
         LocalDateTime timeNow = LocalDateTime.now();
-        for (Appointment appointment : appointmentCalendar.getAllAppointments()){
-            LocalDateTime startDateTime = appointment.getStartDateTimeLocal();
-            if (timeNow.toLocalDate().equals(startDateTime.toLocalDate())) {
-                if (appointment.getUserID() == loginUser.getId()) {
-                    long timeToAppointment = Duration.between(timeNow, startDateTime).toMinutes();
-                    if (timeToAppointment <= 15 && timeToAppointment >= 0) {
-                        nextAppointment = appointment;
-                        break;
-                    }
-                }
+        for (Appointment appointment : ReminderScheduler.getUpcoming(loginUser.getId(), 1)){
+            long timeToAppointment = Duration.between(timeNow, appointment.getStartDateTimeLocal()).toMinutes();
+            if (timeToAppointment <= ReminderScheduler.getLeadMinutes() && timeToAppointment >= 0) {
+                nextAppointment = appointment;
             }
         }
 
-        Alert alert = new Alert(Alert.AlertType.INFORMATION);
-        alert.setTitle("Upcoming Appointment");
         if (nextAppointment != null) {
-            alert.setHeaderText("You have an appointment within the next 15 minutes.");
-            alert.setContentText("Appointment ID: " + nextAppointment.getId());
+            showReminder(nextAppointment);
         } else {
+            Alert alert = new Alert(Alert.AlertType.INFORMATION);
+            alert.setTitle("Upcoming Appointment");
             alert.setHeaderText("You have no upcoming appointments.");
+            alert.showAndWait();
         }
+    }
+
+    /**
+     * Informs the User of an appointment starting soon.
+     * Called at login and by the Reminder Scheduler while the program runs.
+     * @param appointment the upcoming appointment
+     * */
+    private void showReminder(Appointment appointment){
+        Alert alert = new Alert(Alert.AlertType.INFORMATION);
+        alert.setTitle("Upcoming Appointment");
+        alert.setHeaderText("You have an appointment within the next " + ReminderScheduler.getLeadMinutes() + " minutes.");
+        alert.setContentText("Appointment ID: " + appointment.getId());
         alert.showAndWait();
     }
 
@@ -147,6 +185,7 @@ public class MasterController implements Initializable {
      * */
     public void goToCustomers(ActionEvent actionEvent) {
         try {
+            QueryExecutor.newScreenScope("Customers");
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/Forms/AllCustomers.fxml"));
             Parent root = loader.load();
 
@@ -169,6 +208,7 @@ public class MasterController implements Initializable {
      * */
     public void goToAppointments(ActionEvent actionEvent) {
         try {
+            QueryExecutor.newScreenScope("Appointments");
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/Forms/AllAppointments.fxml"));
             Parent root = loader.load();
 
@@ -191,6 +231,7 @@ public class MasterController implements Initializable {
      * */
     public void goToReports(ActionEvent actionEvent) {
         try {
+            QueryExecutor.newScreenScope("Reports");
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/Forms/Reports.fxml"));
             Parent root = loader.load();
 
@@ -210,6 +251,8 @@ public class MasterController implements Initializable {
      * */
     public void exitSystem(ActionEvent actionEvent) {
         if(loggedIn){
+            ChangeSync.stop();
+            ReminderScheduler.stop();
             JDBC.closeConnection();
         }
         Stage stage = (Stage)((Node)actionEvent.getSource()).getScene().getWindow();
@@ -0,0 +1,175 @@
+/**
+ *
+ * @author Arthur J Amende
+ * */
+package Helper;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Connection borrowed from the Connection Pool.
+ * Closing a Pooled Connection returns it to the pool instead of closing the database connection.
+ * <p>
+ *     Prepared Statements are cached per connection by their SQL, so a query is only parsed
+ *     once per connection. Cached statements are closed when the least recently used one is
+ *     evicted or when the database connection is closed, callers must not close them.
+ * </p>
+ * */
+public class PooledConnection implements AutoCloseable {
+    private static final int statementCacheSize = 64;
+    private static final String generatedKeysPrefix = "KEYS:";
+
+    private final ConnectionPool pool;
+    private final Connection connection;
+    private final Map<String, PreparedStatement> statementCache = new LinkedHashMap<>(16, 0.75f, true){
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest){
+            if (size() > statementCacheSize) {
+                closeQuietly(eldest.getValue());
+                return true;
+            }
+            return false;
+        }
+    };
+    private long lastUsed;
+    private boolean borrowed;
+
+    /**
+     * @param pool the Connection Pool that owns this connection
+     * @param connection the database connection
+     * */
+    PooledConnection(ConnectionPool pool, Connection connection){
+        this.pool = pool;
+        this.connection = connection;
+        this.lastUsed = System.currentTimeMillis();
+    }
+
+    /**
+     * @return a new Statement on the database connection
+     * */
+    public Statement createStatement() throws SQLException {
+        return connection.createStatement();
+    }
+
+    /**
+     * Returns the cached Prepared Statement for sql, preparing it on first use.
+     * Parameters from the previous use are cleared. Do not close the returned statement.
+     * @param sql the parameterized SQL
+     * @return a Prepared Statement ready for new parameters
+     * */
+    public PreparedStatement prepareStatement(String sql) throws SQLException {
+        return prepareStatement(sql, Statement.NO_GENERATED_KEYS);
+    }
+
+    /**
+     * Returns the cached Prepared Statement for sql, preparing it on first use.
+     * Statements returning generated keys are cached separately from those that do not.
+     * Parameters from the previous use are cleared. Do not close the returned statement.
+     * @param sql the parameterized SQL
+     * @param autoGeneratedKeys Statement.RETURN_GENERATED_KEYS or Statement.NO_GENERATED_KEYS
+     * @return a Prepared Statement ready for new parameters
+     * */
+    public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
+        String key = autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS ? generatedKeysPrefix + sql : sql;
+        PreparedStatement statement = statementCache.get(key);
+        if (statement == null || statement.isClosed()) {
+            statement = connection.prepareStatement(sql, autoGeneratedKeys);
+            statementCache.put(key, statement);
+        } else {
+            statement.clearParameters();
+        }
+        return statement;
+    }
+
+    /**
+     * @return number of Prepared Statements cached on this connection
+     * */
+    public int getCachedStatements(){
+        return statementCache.size();
+    }
+
+    /**
+     * @return the database connection
+     * */
+    public Connection getConnection(){
+        return connection;
+    }
+
+    /**
+     * Returns this connection to the Connection Pool.
+     * */
+    @Override
+    public void close(){
+        if (borrowed) {
+            borrowed = false;
+            pool.release(this);
+        }
+    }
+
+    /**
+     * @param timeoutSeconds seconds to wait for the database to respond
+     * @return true if the database connection is still usable, otherwise false
+     * */
+    boolean isValid(int timeoutSeconds){
+        try {
+            return !connection.isClosed() && connection.isValid(timeoutSeconds);
+        } catch (SQLException e){
+            return false;
+        }
+    }
+
+    /**
+     * Restores auto-commit so the next borrower starts from a clean connection.
+     * @return true if the connection could be reset, otherwise false
+     * */
+    boolean reset(){
+        try {
+            if (!connection.getAutoCommit()){
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+            return true;
+        } catch (SQLException e){
+            return false;
+        }
+    }
+
+    /**
+     * Closes all cached Prepared Statements and the database connection.
+     * */
+    void closePhysical(){
+        statementCache.values().forEach(PooledConnection::closeQuietly);
+        statementCache.clear();
+        try {
+            connection.close();
+        } catch (SQLException e){
+//            e.printStackTrace();
+        }
+    }
+
+    private static void closeQuietly(Statement statement){
+        try {
+            statement.close();
+        } catch (SQLException e){
+//            e.printStackTrace();
+        }
+    }
+
+    void markBorrowed(){
+        borrowed = true;
+        lastUsed = System.currentTimeMillis();
+    }
+
+    void markReturned(){
+        lastUsed = System.currentTimeMillis();
+    }
+
+    long getLastUsed(){
+        return lastUsed;
+    }
+}
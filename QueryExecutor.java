@@ -0,0 +1,470 @@
+/**
+ *
+ * @author Arthur J Amende
+ * */
+package Helper;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+import java.sql.BatchUpdateException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Runs every database operation for JDBC.
+ * <p>
+ *     Each operation borrows a pooled connection and returns it, and closes its Result Set, before returning.
+ *     Every statement gets a query timeout, db.queryTimeout seconds unless overridden with withTimeout.
+ *     Every statement is registered with a Query Scope while it runs. By default this is the screen scope,
+ *     which MasterController replaces when the user navigates, cancelling whatever the previous form left running.
+ *     Failures are thrown as a DataAccessException with the Kind of failure, never returned as empty results.
+ * </p>
+ * */
+public abstract class QueryExecutor {
+    /**
+     * Work done with a borrowed connection.
+     * @param <T> the type of result
+     * */
+    @FunctionalInterface
+    public interface Work<T> {
+        T run(PooledConnection connection) throws SQLException;
+    }
+
+    /**
+     * Work done with one registered statement.
+     * @param <T> the type of result
+     * */
+    @FunctionalInterface
+    private interface StatementWork<T> {
+        T run() throws SQLException;
+    }
+
+    /** Fetch size asking the MySQL driver to stream rows one at a time instead of reading them all. */
+    public static final int streamingFetchSize = Integer.MIN_VALUE;
+
+    private static final int defaultTimeoutSeconds = Integer.getInteger("db.queryTimeout", 30);
+    private static final ThreadLocal<Integer> timeoutOverride = new ThreadLocal<>();
+    private static final ThreadLocal<QueryScope> threadScope = new ThreadLocal<>();
+    private static volatile QueryScope screenScope = new QueryScope("Login");
+
+    /**
+     * Cancels the current screen scope and starts a new one.
+     * Call when the user leaves a form, its unfinished queries are cancelled.
+     * @param name the name of the new form
+     * @return the new screen scope
+     * */
+    public static QueryScope newScreenScope(String name){
+        QueryScope previous = screenScope;
+        screenScope = new QueryScope(name);
+        previous.cancel();
+        return screenScope;
+    }
+
+    /**
+     * @return the scope queries on this thread are registered with
+     * */
+    public static QueryScope currentScope(){
+        QueryScope scope = threadScope.get();
+        return scope != null ? scope : screenScope;
+    }
+
+    /**
+     * Runs work on this thread with its queries registered in scope instead of the screen scope,
+     * e.g. for a background job that must outlive navigation.
+     * @param scope the scope to register queries with
+     * @param work the work to run
+     * @return the result of work
+     * */
+    public static <T> T inScope(QueryScope scope, Supplier<T> work){
+        QueryScope previous = threadScope.get();
+        threadScope.set(scope);
+        try {
+            return work.get();
+        } finally {
+            threadScope.set(previous);
+        }
+    }
+
+    /**
+     * Runs work on this thread with a different query timeout.
+     * @param timeoutSeconds seconds each statement may run, 0 for no limit
+     * @param work the work to run
+     * @return the result of work
+     * */
+    public static <T> T withTimeout(int timeoutSeconds, Supplier<T> work){
+        Integer previous = timeoutOverride.get();
+        timeoutOverride.set(timeoutSeconds);
+        try {
+            return work.get();
+        } finally {
+            timeoutOverride.set(previous);
+        }
+    }
+
+    /**
+     * Borrows a connection, runs work, and returns the connection.
+     * @param work the work to run
+     * @return the result of work
+     * @throws DataAccessException if no connection is available or the work fails
+     * */
+    public static <T> T execute(Work<T> work){
+        QueryScope scope = currentScope();
+        PooledConnection connection;
+        try {
+            connection = JDBC.getConnection();
+        } catch (SQLException e){
+            throw new DataAccessException(DataAccessException.Kind.CONNECTION, e.getMessage(), e);
+        }
+        try (connection){
+            return work.run(connection);
+        } catch (SQLException e){
+            throw DataAccessException.from(e, scope.isCancelled());
+        }
+    }
+
+    /**
+     * Borrows a connection and runs work in one transaction.
+     * The transaction is committed if work returns and rolled back if it throws.
+     * @param work the work to run
+     * @return the result of work
+     * @throws DataAccessException if no connection is available or the work fails
+     * */
+    public static <T> T inTransaction(Work<T> work){
+        return execute(connection -> {
+            connection.getConnection().setAutoCommit(false);
+            try {
+                T result = work.run(connection);
+                connection.getConnection().commit();
+                return result;
+            } catch (SQLException | RuntimeException e){
+                connection.getConnection().rollback();
+                throw e;
+            }
+        });
+    }
+
+    /**
+     * Prepares a cached statement with the query timeout and binds its parameters.
+     * @param connection the borrowed connection
+     * @param sql the SQL with ? placeholders
+     * @param parameters values bound to the placeholders in order
+     * @return the prepared statement, do not close it
+     * */
+    public static PreparedStatement prepare(PooledConnection connection, String sql, Object... parameters) throws SQLException {
+        return prepare(connection, sql, Statement.NO_GENERATED_KEYS, parameters);
+    }
+
+    /**
+     * Prepares a cached statement with the query timeout and binds its parameters.
+     * @param connection the borrowed connection
+     * @param sql the SQL with ? placeholders
+     * @param autoGeneratedKeys Statement.RETURN_GENERATED_KEYS or Statement.NO_GENERATED_KEYS
+     * @param parameters values bound to the placeholders in order
+     * @return the prepared statement, do not close it
+     * */
+    private static PreparedStatement prepare(PooledConnection connection, String sql, int autoGeneratedKeys, Object... parameters) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(sql, autoGeneratedKeys);
+        Integer timeout = timeoutOverride.get();
+        statement.setQueryTimeout(timeout != null ? timeout : defaultTimeoutSeconds);
+        bind(statement, parameters);
+        return statement;
+    }
+
+    /**
+     * Executes a prepared INSERT, UPDATE, or DELETE registered with the current scope.
+     * @param statement the prepared statement
+     * @return number of rows changed
+     * */
+    public static int executeUpdate(PreparedStatement statement) throws SQLException {
+        return tracked(statement, statement::executeUpdate);
+    }
+
+    /**
+     * Executes a prepared query registered with the current scope and maps every row.
+     * @param statement the prepared statement
+     * @param mapper maps one row to one object
+     * @return all mapped rows
+     * */
+    public static <T> List<T> executeQuery(PreparedStatement statement, RowMapper<T> mapper) throws SQLException {
+        return tracked(statement, () -> {
+            List<T> rows = new ArrayList<>();
+            try (ResultSet resultSet = statement.executeQuery()){
+                while (resultSet.next()){
+                    rows.add(mapper.map(resultSet));
+                }
+            }
+            return rows;
+        });
+    }
+
+    /**
+     * Runs a parameterized query and maps every row.
+     * @param sql the SQL with ? placeholders
+     * @param mapper maps one row to one object
+     * @param parameters values bound to the placeholders in order
+     * @return all mapped rows
+     * */
+    public static <T> ObservableList<T> query(String sql, RowMapper<T> mapper, Object... parameters){
+        return query(sql, 0, mapper, parameters);
+    }
+
+    /**
+     * Runs a parameterized query and maps every row.
+     * @param sql the SQL with ? placeholders
+     * @param fetchSize rows fetched per round trip, 0 for the driver default
+     * @param mapper maps one row to one object
+     * @param parameters values bound to the placeholders in order
+     * @return all mapped rows
+     * */
+    public static <T> ObservableList<T> query(String sql, int fetchSize, RowMapper<T> mapper, Object... parameters){
+        return execute(connection -> {
+            PreparedStatement statement = prepare(connection, sql, parameters);
+            statement.setFetchSize(fetchSize);
+            return tracked(statement, () -> {
+                ObservableList<T> rows = FXCollections.observableArrayList();
+                try (ResultSet resultSet = statement.executeQuery()){
+                    while (resultSet.next()){
+                        rows.add(mapper.map(resultSet));
+                    }
+                }
+                return rows;
+            });
+        });
+    }
+
+    /**
+     * Runs a parameterized query and hands each mapped row to action as it is read, without keeping the rows.
+     * With fetchSize streamingFetchSize the driver reads one row at a time, so memory stays flat however
+     * many rows there are. The connection is busy until the last row is read, action must not use the database.
+     * @param sql the SQL with ? placeholders
+     * @param fetchSize rows fetched per round trip, streamingFetchSize to stream, 0 for the driver default
+     * @param mapper maps one row to one object
+     * @param action called with each mapped row, in order
+     * @param parameters values bound to the placeholders in order
+     * @return number of rows read
+     * */
+    public static <T> long forEach(String sql, int fetchSize, RowMapper<T> mapper, Consumer<? super T> action, Object... parameters){
+        return execute(connection -> {
+            PreparedStatement statement = prepare(connection, sql, parameters);
+            statement.setFetchSize(fetchSize);
+            try {
+                return tracked(statement, () -> {
+                    long count = 0;
+                    try (ResultSet resultSet = statement.executeQuery()){
+                        while (resultSet.next()){
+                            action.accept(mapper.map(resultSet));
+                            ++count;
+                        }
+                    }
+                    return count;
+                });
+            } finally {
+                // The statement is cached, later queries must not stream by accident
+                statement.setFetchSize(0);
+            }
+        });
+    }
+
+    /**
+     * Runs a parameterized query and maps the first row.
+     * @param sql the SQL with ? placeholders
+     * @param mapper maps one row to one object
+     * @param parameters values bound to the placeholders in order
+     * @return the mapped first row, or null if there are no rows
+     * */
+    public static <T> T queryFirst(String sql, RowMapper<T> mapper, Object... parameters){
+        return execute(connection -> {
+            PreparedStatement statement = prepare(connection, sql, parameters);
+            return tracked(statement, () -> {
+                try (ResultSet resultSet = statement.executeQuery()){
+                    return resultSet.next() ? mapper.map(resultSet) : null;
+                }
+            });
+        });
+    }
+
+    /**
+     * Runs a parameterized INSERT, UPDATE, or DELETE.
+     * @param sql the SQL with ? placeholders
+     * @param parameters values bound to the placeholders in order
+     * @return number of rows changed
+     * */
+    public static int update(String sql, Object... parameters){
+        return execute(connection -> executeUpdate(prepare(connection, sql, parameters)));
+    }
+
+    /**
+     * Runs a parameterized INSERT and reads the key the database generated for the new row.
+     * @param sql the SQL with ? placeholders
+     * @param parameters values bound to the placeholders in order
+     * @return the generated key, or 0 if the database did not return one
+     * */
+    public static int insert(String sql, Object... parameters){
+        return execute(connection -> {
+            PreparedStatement statement = prepare(connection, sql, Statement.RETURN_GENERATED_KEYS, parameters);
+            return tracked(statement, () -> {
+                statement.executeUpdate();
+                try (ResultSet keys = statement.getGeneratedKeys()){
+                    return keys.next() ? keys.getInt(1) : 0;
+                }
+            });
+        });
+    }
+
+    /**
+     * Runs one parameterized INSERT or UPDATE per item as JDBC batches in a single transaction.
+     * The items are sent chunkSize at a time. If any item fails the whole transaction is rolled back.
+     * @param sql the SQL with ? placeholders
+     * @param items the items to write
+     * @param chunkSize items sent per batch
+     * @param parameters maps an item to the values bound to the placeholders in order
+     * @return one result per item, in the order of items
+     * @throws DataAccessException if no connection is available or the commit fails
+     * */
+    public static <T> List<WriteResult> batch(String sql, Collection<T> items, int chunkSize, Function<T, Object[]> parameters){
+        return batch(sql, items, chunkSize, parameters, null);
+    }
+
+    /**
+     * Runs one parameterized INSERT per item as JDBC batches in a single transaction, reading the
+     * keys the database generated for the new rows after each batch.
+     * The items are sent chunkSize at a time. If any item fails the whole transaction is rolled back.
+     * @param sql the SQL with ? placeholders
+     * @param items the items to write
+     * @param chunkSize items sent per batch
+     * @param parameters maps an item to the values bound to the placeholders in order
+     * @param setKey given each item and its generated key once the transaction is committed
+     * @return one result per item, in the order of items
+     * @throws DataAccessException if no connection is available or the commit fails
+     * */
+    public static <T> List<WriteResult> batchInsert(String sql, Collection<T> items, int chunkSize, Function<T, Object[]> parameters, ObjIntConsumer<T> setKey){
+        int[] keys = new int[items.size()];
+        List<WriteResult> results = batch(sql, items, chunkSize, parameters, keys);
+        if (!results.isEmpty() && results.get(0) == WriteResult.SUCCESS) {
+            int index = 0;
+            for (T item : items){
+                setKey.accept(item, keys[index++]);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * @param keys filled with the generated key of each item, or null to not read keys
+     * */
+    private static <T> List<WriteResult> batch(String sql, Collection<T> items, int chunkSize, Function<T, Object[]> parameters, int[] keys){
+        WriteResult[] results = new WriteResult[items.size()];
+        if (results.length == 0) return new ArrayList<>();
+        if (chunkSize < 1) throw new IllegalArgumentException("Invalid chunk size: " + chunkSize);
+
+        Arrays.fill(results, WriteResult.ROLLED_BACK);
+        execute(connection -> {
+            connection.getConnection().setAutoCommit(false);
+            PreparedStatement statement = prepare(connection, sql, keys != null ? Statement.RETURN_GENERATED_KEYS : Statement.NO_GENERATED_KEYS, new Object[0]);
+
+            boolean failed = false;
+            int index = 0;
+            int chunkStart = 0;
+            for (T item : items){
+                try {
+                    bind(statement, parameters.apply(item));
+                    statement.addBatch();
+                } catch (RuntimeException e){
+                    results[index] = WriteResult.FAILED;
+                    failed = true;
+                    break;
+                }
+                ++index;
+                if (index - chunkStart == chunkSize || index == results.length) {
+                    final int start = chunkStart;
+                    if (!tracked(statement, () -> executeChunk(statement, results, start))) {
+                        failed = true;
+                        break;
+                    }
+                    if (keys != null) {
+                        readKeys(statement, keys, start, index);
+                    }
+                    chunkStart = index;
+                }
+            }
+
+            if (failed) {
+                statement.clearBatch();
+                connection.getConnection().rollback();
+            } else {
+                connection.getConnection().commit();
+                Arrays.fill(results, WriteResult.SUCCESS);
+            }
+            return null;
+        });
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Reads the keys generated by the last batch, one per item from start to end.
+     * */
+    private static void readKeys(PreparedStatement statement, int[] keys, int start, int end) throws SQLException {
+        try (ResultSet generatedKeys = statement.getGeneratedKeys()){
+            int index = start;
+            while (index < end && generatedKeys.next()) {
+                keys[index++] = generatedKeys.getInt(1);
+            }
+            if (index < end) throw new SQLException("The database returned " + (index - start) + " generated keys for " + (end - start) + " rows.");
+        }
+    }
+
+    /**
+     * Executes the batched chunk and marks the items the database rejected.
+     * @return true if every item in the chunk was accepted, otherwise false
+     * */
+    private static boolean executeChunk(PreparedStatement statement, WriteResult[] results, int chunkStart) throws SQLException {
+        try {
+            statement.executeBatch();
+            return true;
+        } catch (BatchUpdateException e){
+            int[] counts = e.getUpdateCounts();
+            boolean marked = false;
+            for (int i = 0; i < counts.length && chunkStart + i < results.length; ++i){
+                if (counts[i] == Statement.EXECUTE_FAILED) {
+                    results[chunkStart + i] = WriteResult.FAILED;
+                    marked = true;
+                }
+            }
+            // Drivers that stop at the first failure report only the counts before it
+            if (!marked && chunkStart + counts.length < results.length) {
+                results[chunkStart + counts.length] = WriteResult.FAILED;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Runs work with statement registered in the current scope so it can be cancelled.
+     * */
+    private static <T> T tracked(Statement statement, StatementWork<T> work) throws SQLException {
+        QueryScope scope = currentScope();
+        scope.begin(statement);
+        try {
+            return work.run();
+        } finally {
+            scope.end(statement);
+        }
+    }
+
+    private static void bind(PreparedStatement statement, Object... parameters) throws SQLException {
+        for (int i = 0; i < parameters.length; ++i){
+            statement.setObject(i + 1, parameters[i]);
+        }
+    }
+}
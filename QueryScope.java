@@ -0,0 +1,72 @@
+/**
+ *
+ * @author Arthur J Amende
+ * */
+package Helper;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Group of queries that can be cancelled together, e.g. all queries started by one form.
+ * Cancelling a scope cancels its running statements and fails any query started in it afterwards.
+ * */
+public class QueryScope {
+    private final String name;
+    private final Set<Statement> running = new HashSet<>();
+    private boolean cancelled = false;
+
+    /**
+     * @param name the name shown in error messages
+     * */
+    public QueryScope(String name){
+        this.name = name;
+    }
+
+    /**
+     * Cancels all running statements in this scope. Queries started later fail with CANCELLED.
+     * */
+    public synchronized void cancel(){
+        cancelled = true;
+        for (Statement statement : running){
+            try {
+                statement.cancel();
+            } catch (SQLException e){
+//                e.printStackTrace();
+            }
+        }
+        running.clear();
+    }
+
+    /**
+     * @return true if this scope was cancelled
+     * */
+    public synchronized boolean isCancelled(){
+        return cancelled;
+    }
+
+    /**
+     * Registers a statement about to execute.
+     * @throws DataAccessException if this scope was cancelled
+     * */
+    synchronized void begin(Statement statement){
+        if (cancelled) {
+            throw new DataAccessException(DataAccessException.Kind.CANCELLED, "Query scope '" + name + "' was cancelled.", null);
+        }
+        running.add(statement);
+    }
+
+    /**
+     * Unregisters a statement that finished executing.
+     * */
+    synchronized void end(Statement statement){
+        running.remove(statement);
+    }
+
+    @Override
+    public String toString(){
+        return name;
+    }
+}
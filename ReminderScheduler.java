@@ -0,0 +1,286 @@
+/**
+ *
+ * @author Arthur J Amende
+ * */
+package Classes;
+
+import Helper.DataAccessException;
+import Helper.IntMap;
+import Helper.QueryExecutor;
+import Helper.QueryScope;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Reminds the logged in User of each Appointment shortly before it starts, for the whole session.
+ * <p>
+ *     Every User's upcoming Appointments are kept in a queue ordered by Start, updated as the
+ *     Appointment Store changes. One background thread sleeps until the next reminder of the
+ *     watched User is due, so nothing is scanned while waiting. The next Appointments of any User
+ *     are read from the front of their queue. Appointments that have started are dropped from a
+ *     queue whenever it is read or added to.
+ *     Each reminder sent is remembered with the Start it was sent for, so an Appointment added or moved
+ *     into the lead time is reminded at once, and one moved to another Start is reminded again.
+ *     Reminders are sent reminder.leadMinutes before Start, 15 unless overridden with -Dreminder.leadMinutes.
+ *     Reloading the Appointment Store after it is invalidated runs in its own Query Scope, so navigating
+ *     between forms does not cancel it, and is retried every reminder.retrySeconds, 30 by default, until it succeeds.
+ * </p>
+ * */
+public abstract class ReminderScheduler {
+    private static final long leadMinutes = Long.getLong("reminder.leadMinutes", 15L);
+    private static final long retrySeconds = Long.getLong("reminder.retrySeconds", 30L);
+
+    private static final Object lock = new Object();
+    private static final IntMap<TreeSet<Appointment>> upcomingByUser = new IntMap<>();
+    private static ScheduledExecutorService executor;
+    private static ScheduledFuture<?> nextReminder;
+    private static QueryScope scope = new QueryScope("Reminders");
+    private static int watchedUserID;
+    private static Consumer<Appointment> notifier;
+    // Start each reminded Appointment of the watched User was reminded for, by ID number
+    private static final Map<Integer, LocalDateTime> remindedStarts = new HashMap<>();
+    // Appointments loaded at login starting before this are covered by the login reminder
+    private static LocalDateTime loginCoveredUntil;
+
+    private static final AppointmentStore.Listener listener = new AppointmentStore.Listener() {
+        @Override
+        public void appointmentsLoaded(List<Appointment> appointments){
+            synchronized (lock) {
+                upcomingByUser.clear();
+                LocalDateTime now = LocalDateTime.now();
+                appointments.forEach(n -> {if (!n.getStartDateTimeLocal().isBefore(now)) queue(n);});
+                if (loginCoveredUntil != null) {
+                    TreeSet<Appointment> upcoming = upcomingByUser.get(watchedUserID);
+                    if (upcoming != null) {
+                        upcoming.headSet(probe(loginCoveredUntil, Integer.MAX_VALUE), false)
+                                .forEach(n -> remindedStarts.put(n.getId(), n.getStartDateTimeLocal()));
+                    }
+                    loginCoveredUntil = null;
+                }
+                reschedule();
+            }
+        }
+
+        @Override
+        public void appointmentsInvalidated(){
+            synchronized (lock) {
+                upcomingByUser.clear();
+                reschedule();
+                if (executor != null) {
+                    executor.execute(ReminderScheduler::reload);
+                }
+            }
+        }
+
+        @Override
+        public void appointmentAdded(Appointment appointment){
+            synchronized (lock) {
+                if (!appointment.getStartDateTimeLocal().isBefore(LocalDateTime.now())) {
+                    queue(appointment);
+                    if (appointment.getUserID() == watchedUserID) reschedule();
+                }
+            }
+        }
+
+        @Override
+        public void appointmentRemoved(Appointment appointment){
+            synchronized (lock) {
+                TreeSet<Appointment> upcoming = upcomingByUser.get(appointment.getUserID());
+                if (upcoming != null && upcoming.remove(appointment) && appointment.getUserID() == watchedUserID) {
+                    reschedule();
+                }
+            }
+        }
+    };
+
+    /**
+     * Starts reminding a User, loading the Appointment Store if needed.
+     * Appointments starting within the lead time are not reminded, the login reminder covers them.
+     * @param userID ID number of the User to remind
+     * @param notifier called on the reminder thread with a copy of each Appointment when its reminder is due
+     * @throws DataAccessException if the Appointments could not be loaded
+     * */
+    public static void start(int userID, Consumer<Appointment> notifier){
+        stop();
+        synchronized (lock) {
+            executor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "appointment-reminders");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scope = new QueryScope("Reminders");
+            watchedUserID = userID;
+            ReminderScheduler.notifier = notifier;
+            remindedStarts.clear();
+            loginCoveredUntil = LocalDateTime.now().plusMinutes(leadMinutes);
+        }
+        // The listener takes lock while the store tells it about changes, so the store is never called while holding lock
+        AppointmentStore.addListener(listener);
+        AppointmentStore.load();
+    }
+
+    /**
+     * Stops reminding and stops following the Appointment Store.
+     * */
+    public static void stop(){
+        AppointmentStore.removeListener(listener);
+        synchronized (lock) {
+            if (executor != null) {
+                executor.shutdownNow();
+                executor = null;
+            }
+            scope.cancel();
+            nextReminder = null;
+            notifier = null;
+            upcomingByUser.clear();
+            remindedStarts.clear();
+        }
+    }
+
+    /**
+     * @return minutes before Start that an Appointment is reminded
+     * */
+    public static long getLeadMinutes(){
+        return leadMinutes;
+    }
+
+    /**
+     * @param userID ID number of the User
+     * @param count the maximum number of Appointments
+     * @return copies of the User's next Appointments that have not started, ordered by Start
+     * */
+    public static List<Appointment> getUpcoming(int userID, int count){
+        List<Appointment> next = new ArrayList<>();
+        synchronized (lock) {
+            TreeSet<Appointment> upcoming = upcomingByUser.get(userID);
+            if (upcoming == null) return next;
+
+            prune(upcoming, LocalDateTime.now());
+            for (Appointment appointment : upcoming){
+                if (next.size() == count) break;
+                next.add(new Appointment(appointment));
+            }
+        }
+        return next;
+    }
+
+    private static void queue(Appointment appointment){
+        TreeSet<Appointment> upcoming = upcomingByUser.get(appointment.getUserID());
+        if (upcoming == null) {
+            upcoming = new TreeSet<>(AppointmentStore.byStart);
+            upcomingByUser.put(appointment.getUserID(), upcoming);
+        }
+        prune(upcoming, LocalDateTime.now());
+        upcoming.add(appointment);
+    }
+
+    /**
+     * Drops the Appointments that started before now. Call holding lock.
+     * */
+    private static void prune(TreeSet<Appointment> upcoming, LocalDateTime now){
+        upcoming.headSet(probe(now, Integer.MIN_VALUE), false).clear();
+    }
+
+    /**
+     * Schedules the reminder of the watched User's first Appointment not yet reminded. Call holding lock.
+     * */
+    private static void reschedule(){
+        if (nextReminder != null) {
+            nextReminder.cancel(false);
+            nextReminder = null;
+        }
+        TreeSet<Appointment> upcoming = upcomingByUser.get(watchedUserID);
+        if (executor == null || upcoming == null) return;
+
+        Appointment next = null;
+        for (Appointment appointment : upcoming){
+            if (!isReminded(appointment)) {
+                next = appointment;
+                break;
+            }
+        }
+        if (next == null) return;
+
+        long delayMillis = Duration.between(LocalDateTime.now(), next.getStartDateTimeLocal().minusMinutes(leadMinutes)).toMillis();
+        nextReminder = executor.schedule(ReminderScheduler::remind, Math.max(0, delayMillis), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Sends every reminder that is due, drops Appointments that have started, and schedules the next reminder.
+     * */
+    private static void remind(){
+        List<Appointment> due = new ArrayList<>();
+        Consumer<Appointment> remindUser;
+        synchronized (lock) {
+            remindUser = notifier;
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime dueUntil = now.plusMinutes(leadMinutes);
+            TreeSet<Appointment> upcoming = upcomingByUser.get(watchedUserID);
+            if (upcoming != null) {
+                prune(upcoming, now);
+                upcoming.headSet(probe(dueUntil, Integer.MAX_VALUE), false).forEach(n -> {
+                    if (isReminded(n)) return;
+                    remindedStarts.put(n.getId(), n.getStartDateTimeLocal());
+                    due.add(new Appointment(n));
+                });
+            }
+            remindedStarts.values().removeIf(n -> n.isBefore(now));
+            reschedule();
+        }
+        if (remindUser != null) {
+            due.forEach(remindUser);
+        }
+    }
+
+    /**
+     * @return true if the Appointment was reminded for its current Start. Call holding lock.
+     * */
+    private static boolean isReminded(Appointment appointment){
+        return appointment.getStartDateTimeLocal().equals(remindedStarts.get(appointment.getId()));
+    }
+
+    /**
+     * Loads the Appointment Store again, trying again after retrySeconds if the database could not be read.
+     * */
+    private static void reload(){
+        QueryScope reloadScope;
+        synchronized (lock) {
+            if (executor == null) return;
+            reloadScope = scope;
+        }
+        try {
+            QueryExecutor.inScope(reloadScope, () -> {
+                AppointmentStore.load();
+                return null;
+            });
+        } catch (DataAccessException e){
+//            e.printStackTrace();
+            synchronized (lock) {
+                if (executor != null) {
+                    executor.schedule(ReminderScheduler::reload, retrySeconds, TimeUnit.SECONDS);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return an Appointment sorting at startDateTime, before or after real Appointments starting then
+     * */
+    private static Appointment probe(LocalDateTime startDateTime, int id){
+        Appointment probe = new Appointment();
+        probe.setId(id);
+        probe.setStartDateTime(startDateTime);
+        return probe;
+    }
+}
@@ -32,8 +32,18 @@ public class ReportThree extends Individual{
         return hours;
     }
 
+    /**
+     * @return the Customer ID number and name, as shown in the Report Three table
+     */
     @Override
     public String getName(){
         return super.getId() + ": " + super.getName();
     }
+
+    /**
+     * @return the Customer name alone, without the ID number
+     */
+    public String getCustomerName(){
+        return super.getName();
+    }
 }
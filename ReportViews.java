@@ -0,0 +1,172 @@
+/**
+ *
+ * @author Arthur J Amende
+ * */
+package Classes;
+
+import Helper.GroupBy;
+import Helper.GroupKey;
+import Helper.IntMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Report One, Report Two, and Report Three kept current as the Appointment Store changes.
+ * <p>
+ *     The Group Bys of both reports are built once when the store loads, in parallel on the common
+ *     fork/join pool when there are at least reports.parallelThreshold Appointments, 100000 unless
+ *     overridden with -Dreports.parallelThreshold, and in one pass otherwise. After that each Appointment
+ *     added, updated, or deleted, through an Appointment Calendar or by Change Sync, only moves its
+ *     count and minutes from its old month, type, and Customer to its new ones. Reading a report
+ *     takes time in the number of rows, not Appointments. Rows match Reports.reportOne and Reports.reportThree.
+ *     Report Two keeps each Contact's Appointments ordered by Start, so it reads only the Contact's Appointments.
+ *     Change listeners are told after every change, on the thread making it.
+ * </p>
+ * */
+public abstract class ReportViews {
+    private static final int parallelThreshold = Integer.getInteger("reports.parallelThreshold", 100_000);
+
+    private static final Object lock = new Object();
+    private static final List<Runnable> changeListeners = new CopyOnWriteArrayList<>();
+    private static GroupBy<Appointment, GroupKey> byMonthAndType;
+    private static GroupBy<Appointment, Integer> byCustomer;
+    private static IntMap<TreeSet<Appointment>> byContact;
+    private static boolean registered;
+
+    private static final AppointmentStore.Listener listener = new AppointmentStore.Listener() {
+        @Override
+        public void appointmentsLoaded(List<Appointment> appointments){
+            synchronized (lock) {
+                if (appointments.size() >= parallelThreshold) {
+                    byMonthAndType = GroupBy.parallel(appointments, Reports::groupByMonthAndType, ForkJoinPool.commonPool());
+                    byCustomer = GroupBy.parallel(appointments, Reports::groupByCustomer, ForkJoinPool.commonPool());
+                } else {
+                    byMonthAndType = Reports.groupByMonthAndType().addAll(appointments);
+                    byCustomer = Reports.groupByCustomer().addAll(appointments);
+                }
+                byContact = new IntMap<>();
+                appointments.forEach(ReportViews::addToContact);
+            }
+            changed();
+        }
+
+        @Override
+        public void appointmentsInvalidated(){
+            synchronized (lock) {
+                byMonthAndType = null;
+                byCustomer = null;
+                byContact = null;
+            }
+            changed();
+        }
+
+        @Override
+        public void appointmentAdded(Appointment appointment){
+            synchronized (lock) {
+                if (byMonthAndType == null) return;
+                byMonthAndType.add(appointment);
+                byCustomer.add(appointment);
+                addToContact(appointment);
+            }
+            changed();
+        }
+
+        @Override
+        public void appointmentRemoved(Appointment appointment){
+            synchronized (lock) {
+                if (byMonthAndType == null) return;
+                byMonthAndType.remove(appointment);
+                byCustomer.remove(appointment);
+                TreeSet<Appointment> contactAppointments = byContact.get(appointment.getContactID());
+                if (contactAppointments != null) contactAppointments.remove(appointment);
+            }
+            changed();
+        }
+    };
+
+    /**
+     * @return number of Appointments by UTC month and type, ordered by month then type
+     * @throws Helper.DataAccessException if the Appointment Store could not be loaded
+     * */
+    public static List<ReportOne> getReportOne(){
+        load();
+        synchronized (lock) {
+            return Reports.toReportOne(byMonthAndType != null ? byMonthAndType : Reports.groupByMonthAndType());
+        }
+    }
+
+    /**
+     * @param contactID ID number of the Contact
+     * @return the Contact's Appointments ordered by Start. Do not modify them.
+     * @throws Helper.DataAccessException if the Appointment Store could not be loaded
+     * */
+    public static List<Appointment> getReportTwo(int contactID){
+        load();
+        synchronized (lock) {
+            TreeSet<Appointment> contactAppointments = byContact != null ? byContact.get(contactID) : null;
+            return contactAppointments != null ? new ArrayList<>(contactAppointments) : new ArrayList<>();
+        }
+    }
+
+    /**
+     * @return hours of Appointments per Customer, every Customer in the Directory Cache included, ordered by Customer ID
+     * @throws Helper.DataAccessException if the Appointment Store or the Customers could not be loaded
+     * */
+    public static List<ReportThree> getReportThree(){
+        load();
+        List<Customer> customers = DirectoryCache.getCustomers();
+        synchronized (lock) {
+            return Reports.toReportThree(byCustomer != null ? byCustomer : Reports.groupByCustomer(), customers);
+        }
+    }
+
+    /**
+     * @param onChange called after every change to the reports
+     * */
+    public static void addChangeListener(Runnable onChange){
+        changeListeners.add(onChange);
+    }
+
+    /**
+     * @param onChange the listener to stop calling
+     * */
+    public static void removeChangeListener(Runnable onChange){
+        changeListeners.remove(onChange);
+    }
+
+    /**
+     * Follows the Appointment Store from the first read on, loading it if needed.
+     * The listener takes lock while the store tells it about changes, so the store is never called while holding lock.
+     * */
+    private static void load(){
+        boolean register;
+        synchronized (lock) {
+            register = !registered;
+            registered = true;
+        }
+        if (register) {
+            AppointmentStore.addListener(listener);
+        }
+        AppointmentStore.load();
+    }
+
+    /**
+     * Call holding lock.
+     * */
+    private static void addToContact(Appointment appointment){
+        TreeSet<Appointment> contactAppointments = byContact.get(appointment.getContactID());
+        if (contactAppointments == null) {
+            contactAppointments = new TreeSet<>(AppointmentStore.byStart);
+            byContact.put(appointment.getContactID(), contactAppointments);
+        }
+        contactAppointments.add(appointment);
+    }
+
+    private static void changed(){
+        changeListeners.forEach(Runnable::run);
+    }
+}
@@ -0,0 +1,123 @@
+/**
+ *
+ * @author Arthur J Amende
+ * */
+package Classes;
+
+import Helper.GroupBy;
+import Helper.GroupKey;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Builds the rows of Report One and Report Three.
+ * <p>
+ *     Appointments are aggregated in memory with a Group By, in one pass over the Appointments.
+ *     Report Views keeps these Group Bys current over the Appointment Store, so the Reports form
+ *     never reads the database for them. Months are UTC months, as Start is stored, and minutes
+ *     are elapsed minutes between Start and End. Empty collections give empty reports.
+ * </p>
+ * */
+public abstract class Reports {
+    static final Comparator<ReportOne> byMonthAndType = Comparator.comparingInt(ReportOne::getYear)
+            .thenComparingInt(ReportOne::getMonth)
+            .thenComparing(ReportOne::getType);
+    static final Comparator<ReportThree> byCustomerID = Comparator.comparingInt(ReportThree::getId);
+
+    /**
+     * Groups Appointments by year, month, and type of their Start in UTC, counting each group.
+     * @return a Group By with key parts year, month, type and the single measure count
+     * */
+    static GroupBy<Appointment, GroupKey> groupByMonthAndType(){
+        ZoneRules localRules = ZoneId.systemDefault().getRules();
+        return new GroupBy<>(n -> {
+            LocalDateTime start = toUTC(n.getStartDateTimeLocal(), localRules);
+            return GroupKey.of(start.getYear(), start.getMonthValue(), n.getType());
+        }, GroupBy.count());
+    }
+
+    /**
+     * Groups Appointments by Customer, summing their minutes.
+     * @return a Group By with key Customer ID and the single measure minutes
+     * */
+    static GroupBy<Appointment, Integer> groupByCustomer(){
+        ZoneRules localRules = ZoneId.systemDefault().getRules();
+        return new GroupBy<>(Appointment::getCustomerID, GroupBy.sum(n -> minutes(n, localRules)));
+    }
+
+    /**
+     * @param appointments the Appointments to count
+     * @return number of Appointments by UTC month and type, ordered by month then type
+     * */
+    public static List<ReportOne> reportOne(Collection<Appointment> appointments){
+        return toReportOne(groupByMonthAndType().addAll(appointments));
+    }
+
+    /**
+     * @param appointments the Appointments to total
+     * @param customers every Customer, listed with zero hours if they have no Appointments
+     * @return hours of Appointments per Customer, ordered by Customer ID
+     * */
+    public static List<ReportThree> reportThree(Collection<Appointment> appointments, Collection<Customer> customers){
+        return toReportThree(groupByCustomer().addAll(appointments), customers);
+    }
+
+    static List<ReportOne> toReportOne(GroupBy<Appointment, GroupKey> byMonthAndType){
+        List<ReportOne> rows = new ArrayList<>(byMonthAndType.size());
+        for (Map.Entry<GroupKey, long[]> group : byMonthAndType.getGroups().entrySet()){
+            GroupKey key = group.getKey();
+            rows.add(new ReportOne(key.getInt(1), key.getInt(0), (String) key.get(2), (int) group.getValue()[0]));
+        }
+        rows.sort(Reports.byMonthAndType);
+        return rows;
+    }
+
+    /**
+     * Customers missing from customers but found on Appointments are named by ID number.
+     * */
+    static List<ReportThree> toReportThree(GroupBy<Appointment, Integer> byCustomer, Collection<Customer> customers){
+        List<ReportThree> rows = new ArrayList<>(customers.size());
+        Map<Integer, long[]> minutesByCustomer = byCustomer.getGroups();
+        Set<Integer> listed = new HashSet<>();
+        for (Customer customer : customers){
+            long[] minutes = minutesByCustomer.get(customer.getId());
+            rows.add(new ReportThree(customer.getId(), customer.getName(), minutes == null ? 0 : minutes[0] / 60.0));
+            listed.add(customer.getId());
+        }
+        minutesByCustomer.forEach((customerID, minutes) -> {
+            if (!listed.contains(customerID)) {
+                rows.add(new ReportThree(customerID, String.valueOf(customerID), minutes[0] / 60.0));
+            }
+        });
+        rows.sort(byCustomerID);
+        return rows;
+    }
+
+    /**
+     * @return whole minutes elapsed from Start to End, as TIMESTAMPDIFF counts them on the stored UTC times
+     * */
+    static long minutes(Appointment appointment, ZoneRules localRules){
+        LocalDateTime start = toUTC(appointment.getStartDateTimeLocal(), localRules);
+        LocalDateTime end = toUTC(appointment.getEndDateTimeLocal(), localRules);
+        return Duration.between(start, end).toMinutes();
+    }
+
+    /**
+     * @param local time in the system default zone
+     * @param localRules rules of the system default zone
+     * @return local in UTC, as stored in the database
+     * */
+    static LocalDateTime toUTC(LocalDateTime local, ZoneRules localRules){
+        return local.minusSeconds(localRules.getOffset(local).getTotalSeconds());
+    }
+}
@@ -5,18 +5,24 @@
 package Controllers;
 
 import Classes.*;
+import Helper.Exporter;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.Initializable;
+import javafx.scene.control.Alert;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.stage.FileChooser;
 
+import java.io.File;
+import java.io.IOException;
 import java.net.URL;
-import java.time.*;
 import java.util.ResourceBundle;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.BiConsumer;
 
 /**
@@ -47,20 +53,28 @@ public class ReportsController implements Initializable {
     private ObservableList<Appointment> displayAppointments = FXCollections.observableArrayList();
     private ObservableList<ReportThree> allReportThree = FXCollections.observableArrayList();
 
-    private AppointmentCalendar appointmentCalendar = null;
     private Directory directory = null;
+    // Contact shown in Report Two, 0 until one is selected
+    private int selectedContactID = 0;
 
     private final String delimiter = ": ";
 
+    // Refreshes the reports once per burst of changes, removed when the form is left
+    private final AtomicBoolean refreshPending = new AtomicBoolean();
+    private final Runnable onReportsChanged = () -> {
+        if (refreshPending.compareAndSet(false, true)) {
+            Platform.runLater(this::refreshReports);
+        }
+    };
+
     /**
      * Initializes the Reports Form.
-     * Appointments are fetched from the database by a new Appointment Calendar.
+     * Reports are read from Report Views, kept current over the shared Appointment Store.
      * Customers, Users, Contacts, and Countries are fetched from the database by a new Directory.
-     * Table Views are initialized.
+     * Table Views are initialized. The reports follow Appointment changes while the form is shown.
      * */
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle){
-        appointmentCalendar = new AppointmentCalendar();
         directory = new Directory();
 
         //Report One
@@ -95,98 +109,102 @@ public class ReportsController implements Initializable {
 
         tableReportThree.getSortOrder().add(colCustomer);
         tableReportThree.getSortOrder().clear();
+
+        ReportViews.addChangeListener(onReportsChanged);
+        // Navigating away replaces the form in the Master Form, taking the table out of the scene
+        tableReportOne.sceneProperty().addListener((observable, oldScene, newScene) -> {
+            if (newScene == null) ReportViews.removeChangeListener(onReportsChanged);
+        });
+    }
+
+    /**
+     * Refreshes the reports after Appointments change, while the form is shown.
+     * */
+    private void refreshReports(){
+        refreshPending.set(false);
+        if (tableReportOne.getScene() == null) {
+            ReportViews.removeChangeListener(onReportsChanged);
+            return;
+        }
+        populateReportOne();
+        populateReportTwo();
+        getAllReportThree();
     }
 
     /**
      * Populates table data for Report One
      * */
     public void populateReportOne(){
-        ObservableList<Appointment> allAppointments = appointmentCalendar.getAllAppointments();
-
-        Appointment appointment = allAppointments.get(0);
-        int month = appointment.getStartDateTimeLocal().getMonth().getValue();
-        int year = appointment.getStartDateTimeLocal().getYear();
-        String type = appointment.getType();
-        allReportOne.add(new ReportOne(month,year,type));
-
-        for (int i = 1; i < allAppointments.size(); ++i){
-            appointment = allAppointments.get(i);
-            month = appointment.getStartDateTimeLocal().getMonth().getValue();
-            year = appointment.getStartDateTimeLocal().getYear();
-            type = appointment.getType();
-
-            boolean counted = false;
-            for (ReportOne reportOne : allReportOne){
-                if (reportOne.getMonth() == month && reportOne.getYear() == year && reportOne.getType().equals(type)) {
-                    reportOne.incrementCount();
-                    counted = true;
-                    break;
-                }
-            }
-            if (!counted){
-                allReportOne.add(new ReportOne(month,year,type));
-            }
-        }
+        allReportOne.setAll(ReportViews.getReportOne());
     }
 
     /**
      * Populates table data for Report Two based on selected Contact.
      * */
     public void onSelectContact(ActionEvent actionEvent) {
-        int contactID = Integer.parseInt(comboContact.getValue().toString().split(delimiter)[0]);
-        displayAppointments.clear();
-        //Lambda
-        appointmentCalendar.getAllAppointments().forEach((n) -> {if (n.getContactID() == contactID) displayAppointments.add(n);});
+        selectedContactID = Integer.parseInt(comboContact.getValue().toString().split(delimiter)[0]);
+        populateReportTwo();
+    }
+
+    private void populateReportTwo(){
+        if (selectedContactID != 0) {
+            displayAppointments.setAll(ReportViews.getReportTwo(selectedContactID));
+        }
     }
 
     /**
      * Populates table data for Report Three
      * */
     public void getAllReportThree(){
-        ObservableList<Appointment> allAppointments = appointmentCalendar.getAllAppointments();
-
-        Appointment appointment = allAppointments.get(0);
-        LocalDateTime start = appointment.getStartDateTimeLocal();
-        LocalDateTime end = appointment.getEndDateTimeLocal();
-
-        int customerID = appointment.getCustomerID();
-        String name = directory.getCustomer(customerID).getName();
-        double hours = Duration.between(start,end).toMinutes() / 60.0;
-
-        allReportThree.add(new ReportThree(customerID, name, hours));
-        for (int i = 1; i < allAppointments.size(); ++i){
-            appointment = allAppointments.get(i);
-            start = appointment.getStartDateTimeLocal();
-            end = appointment.getEndDateTimeLocal();
-
-            customerID = appointment.getCustomerID();
-            hours = Duration.between(start,end).toMinutes() / 60.0;
-
-            boolean counted = false;
-            for (ReportThree reportThree : allReportThree){
-                if (reportThree.getId() == customerID) {
-                    reportThree.addHours(hours);
-                    counted = true;
-                    break;
-                }
-            }
-            if (!counted){
-                name = directory.getCustomer(customerID).getName();
-                allReportThree.add(new ReportThree(customerID, name, hours));
-            }
+        allReportThree.setAll(ReportViews.getReportThree());
+    }
+
+    /**
+     * Exports Report One as shown to a CSV or JSON lines file chosen by the user.
+     * Triggered by the 'Export' button under Report One.
+     * */
+    public void onExportReportOne(ActionEvent actionEvent) {
+        File file = chooseExportFile("Export Report One", "report-one.csv");
+        if (file == null) return;
+        try {
+            Exporter.exportReportOne(allReportOne, file, Exporter.Format.of(file));
+        } catch (IOException e){
+//            e.printStackTrace();
+            showExportError(file);
         }
+    }
 
-        for (Customer customer : directory.getAllCustomers()){
-            boolean counted = false;
-            for (ReportThree reportThree : allReportThree){
-                if (customer.getId() == reportThree.getId()){
-                    counted = true;
-                    break;
-                }
-            }
-            if (!counted) {
-                allReportThree.add(new ReportThree(customer.getId(), customer.getName(), 0));
-            }
+    /**
+     * Exports Report Three as shown to a CSV or JSON lines file chosen by the user.
+     * Triggered by the 'Export' button under Report Three.
+     * */
+    public void onExportReportThree(ActionEvent actionEvent) {
+        File file = chooseExportFile("Export Report Three", "report-three.csv");
+        if (file == null) return;
+        try {
+            Exporter.exportReportThree(allReportThree, file, Exporter.Format.of(file));
+        } catch (IOException e){
+//            e.printStackTrace();
+            showExportError(file);
         }
     }
+
+    /**
+     * @return the file chosen, a name ending in .jsonl is written as JSON lines and any other as CSV, or null if cancelled
+     * */
+    private File chooseExportFile(String title, String initialFileName){
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle(title);
+        chooser.setInitialFileName(initialFileName);
+        chooser.getExtensionFilters().addAll(new FileChooser.ExtensionFilter("CSV", "*.csv"),
+                new FileChooser.ExtensionFilter("JSON lines", "*.jsonl"));
+        return chooser.showSaveDialog(tableReportOne.getScene().getWindow());
+    }
+
+    private void showExportError(File file){
+        Alert alert = new Alert(Alert.AlertType.ERROR);
+        alert.setTitle("Could not perform action.");
+        alert.setContentText("Could not export report to " + file.getName() + ". Please check the file.");
+        alert.showAndWait();
+    }
 }
@@ -0,0 +1,21 @@
+/**
+ *
+ * @author Arthur J Amende
+ * */
+package Helper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps the current row of a Result Set to an object.
+ * @param <T> the type of object each row is mapped to
+ * */
+@FunctionalInterface
+public interface RowMapper<T> {
+    /**
+     * @param resultSet the Result Set positioned on the row to map
+     * @return the mapped row
+     * */
+    T map(ResultSet resultSet) throws SQLException;
+}
@@ -0,0 +1,17 @@
+/**
+ *
+ * @author Arthur J Amende
+ * */
+package Helper;
+
+/**
+ * Result of writing one item in a bulk write.
+ * */
+public enum WriteResult {
+    /** The item was written and the transaction committed. */
+    SUCCESS,
+    /** The database rejected the item, the transaction was rolled back. */
+    FAILED,
+    /** The item was accepted but another item failed, the transaction was rolled back. */
+    ROLLED_BACK
+}
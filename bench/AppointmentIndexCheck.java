@@ -0,0 +1,82 @@
+/**
+ *
+ * @author Arthur J Amende
+ * */
+package Classes;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Randomized differential check of the Appointment Index against checking every Appointment with Appointment.overlap.
+ * <p>
+ *     Appointments of a few Users are added to and removed from an index at random, on a coarse grid of
+ *     times so that equal Starts, equal Ends, touching Appointments, zero length Appointments, and End
+ *     before Start all come up often. After every change a random Appointment is checked against the
+ *     index and against every indexed Appointment. Any difference fails the check with an Assertion Error
+ *     naming the round and seed. Kept in bench/, out of the application sources. Compile it with the
+ *     application classes on the class path and run with java Classes.AppointmentIndexCheck [rounds] [seed],
+ *     no database is needed.
+ * </p>
+ * */
+public final class AppointmentIndexCheck {
+    private static final LocalDateTime origin = LocalDateTime.of(2021, 3, 1, 8, 0);
+    // Appointments indexed at once, enough to crowd the grid while keeping the brute force check quick
+    private static final int maxIndexed = 400;
+
+    private AppointmentIndexCheck(){
+    }
+
+    /**
+     * @param args optional number of rounds, 200000 by default, and optional seed, random by default
+     * */
+    public static void main(String[] args){
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : System.nanoTime();
+        Random random = new Random(seed);
+
+        AppointmentIndex index = new AppointmentIndex();
+        List<Appointment> indexed = new ArrayList<>();
+        int nextID = 1;
+        for (int round = 0; round < rounds; ++round){
+            if (indexed.isEmpty() || indexed.size() < maxIndexed && random.nextInt(3) > 0) {
+                Appointment appointment = randomAppointment(random, nextID++);
+                index.add(appointment);
+                indexed.add(appointment);
+            } else {
+                Appointment appointment = indexed.remove(random.nextInt(indexed.size()));
+                if (!index.remove(appointment)) fail(seed, round, "indexed Appointment not removed " + appointment.getId());
+            }
+            if (index.size() != indexed.size()) fail(seed, round, "size " + index.size() + " instead of " + indexed.size());
+
+            // Check an indexed Appointment half the time, so matching against itself is covered
+            Appointment check = random.nextBoolean() && !indexed.isEmpty() ? indexed.get(random.nextInt(indexed.size())) : randomAppointment(random, -round);
+            List<Integer> expected = new ArrayList<>();
+            indexed.forEach(n -> {if (n.overlap(check)) expected.add(n.getId());});
+            List<Integer> actual = new ArrayList<>();
+            index.getOverlapping(check).forEach(n -> actual.add(n.getId()));
+            expected.sort(null);
+            actual.sort(null);
+            if (!expected.equals(actual)) fail(seed, round, "Appointment " + check.getId() + " from " + check.getStartDateTimeLocal()
+                    + " to " + check.getEndDateTimeLocal() + " overlaps " + actual + " instead of " + expected);
+        }
+        System.out.println(rounds + " rounds passed, seed " + seed);
+    }
+
+    /**
+     * @return an Appointment of one of four Users, starting and ending on a 15 minute grid over two days
+     * */
+    private static Appointment randomAppointment(Random random, int id){
+        LocalDateTime start = origin.plusMinutes(15L * random.nextInt(192));
+        // Mostly short, sometimes long, zero length, or ending before Start
+        int length = random.nextInt(10) == 0 ? random.nextInt(96) : random.nextInt(9) - 1;
+        LocalDateTime end = start.plusMinutes(15L * length);
+        return new Appointment(id, "Check", "Check", "Check", "Check", start, end, 1, random.nextInt(4), 1);
+    }
+
+    private static void fail(long seed, int round, String message){
+        throw new AssertionError("Round " + round + " of seed " + seed + ": " + message);
+    }
+}
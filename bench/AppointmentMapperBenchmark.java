@@ -0,0 +1,134 @@
+/**
+ *
+ * @author Arthur J Amende
+ * */
+package Helper;
+
+import Classes.Appointment;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Measures the bytes allocated and the time taken to map one appointment row, before and after the Appointment Mapper.
+ * <p>
+ *     Both mappers read the same in-memory row, so only the allocations of mapping are counted, not those
+ *     of a driver. The row returns the same Strings and LocalDateTimes on every call, as a driver would
+ *     return fresh ones to either mapper. Both mappers read ten columns, the cost of reading them from the
+ *     in-memory row alone is measured as the baseline and is included in both.
+ *     The string mapper is the one the Appointment Mapper replaced: columns by name, Start and End read
+ *     as text, suffixed with UTC, parsed, and converted through ZonedDateTime.
+ *     Allocations are read from the thread's allocation counter, after a warm up so the JIT has compiled both.
+ *     Kept in bench/, out of the application sources. Compile it with the application classes on the
+ *     class path and run with java Helper.AppointmentMapperBenchmark [rows], no database is needed.
+ * </p>
+ * */
+public final class AppointmentMapperBenchmark {
+    private static final DateTimeFormatter zonedDateTimeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss z");
+
+    private AppointmentMapperBenchmark(){
+    }
+
+    /**
+     * @param args optional number of rows mapped per measurement, 1000000 by default
+     * */
+    public static void main(String[] args) throws SQLException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        ResultSet row = row();
+
+        RowMapper<Appointment> stringMapper = AppointmentMapperBenchmark::mapWithStrings;
+        RowMapper<Appointment> appointmentMapper = new AppointmentMapper();
+        RowMapper<Appointment> readOnly = AppointmentMapperBenchmark::readColumns;
+        for (int warmUp = 0; warmUp < 3; ++warmUp){
+            measure(readOnly, row, rows);
+            measure(stringMapper, row, rows);
+            measure(appointmentMapper, row, rows);
+        }
+        report("baseline reads", measure(readOnly, row, rows), rows);
+        report("string parsing", measure(stringMapper, row, rows), rows);
+        report("Appointment Mapper", measure(appointmentMapper, row, rows), rows);
+    }
+
+    /**
+     * @return bytes allocated and nanoseconds taken to map rows rows
+     * */
+    private static long[] measure(RowMapper<Appointment> mapper, ResultSet row, int rows) throws SQLException {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadID = Thread.currentThread().getId();
+        long checksum = 0;
+        long bytesBefore = threads.getThreadAllocatedBytes(threadID);
+        long start = System.nanoTime();
+        for (int i = 0; i < rows; ++i){
+            Appointment appointment = mapper.map(row);
+            checksum += appointment == null ? 1 : appointment.getId();
+        }
+        long nanos = System.nanoTime() - start;
+        long bytes = threads.getThreadAllocatedBytes(threadID) - bytesBefore;
+        if (checksum == -1) System.out.println(checksum);
+        return new long[]{bytes, nanos};
+    }
+
+    private static void report(String name, long[] measured, int rows){
+        System.out.printf("%-20s %8.1f bytes/row %8.1f ns/row%n", name, measured[0] / (double) rows, measured[1] / (double) rows);
+    }
+
+    /**
+     * Reads the ten columns every mapper reads, without mapping them.
+     * */
+    private static Appointment readColumns(ResultSet resultSet) throws SQLException {
+        for (int column = 1; column <= 4; ++column){
+            if (resultSet.getString(column + 1) == null || resultSet.getInt(column) < 0) return new Appointment();
+        }
+        if (resultSet.getObject(6, LocalDateTime.class) == resultSet.getObject(7, LocalDateTime.class)) return new Appointment();
+        return null;
+    }
+
+    private static Appointment mapWithStrings(ResultSet resultSet) throws SQLException {
+        Appointment appointment = new Appointment();
+        appointment.setId(resultSet.getInt("Appointment_ID"));
+        appointment.setTitle(resultSet.getString("Title"));
+        appointment.setDescription(resultSet.getString("Description"));
+        appointment.setLocation(resultSet.getString("Location"));
+        appointment.setType(resultSet.getString("Type"));
+
+        String startDateTime = resultSet.getString("Start") + " UTC";
+        String endDateTime = resultSet.getString("End") + " UTC";
+        appointment.setStartDateTime(ZonedDateTime.parse(startDateTime, zonedDateTimeFormatter));
+        appointment.setEndDateTime(ZonedDateTime.parse(endDateTime, zonedDateTimeFormatter));
+
+        appointment.setCustomerID(resultSet.getInt("Customer_ID"));
+        appointment.setUserID(resultSet.getInt("User_ID"));
+        appointment.setContactID(resultSet.getInt("Contact_ID"));
+        return appointment;
+    }
+
+    /**
+     * @return a Result Set positioned on one appointment row, read by position or by name
+     * */
+    private static ResultSet row(){
+        LocalDateTime start = LocalDateTime.of(2021, 3, 1, 14, 0);
+        LocalDateTime end = start.plusMinutes(30);
+        String startText = "2021-03-01 14:00:00";
+        String endText = "2021-03-01 14:30:00";
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class}, (proxy, method, args) -> {
+            Object column = args != null && args.length > 0 ? args[0] : null;
+            switch (method.getName()) {
+                case "getInt":
+                    return column instanceof Integer ? (Integer) column : String.valueOf(column).length();
+                case "getString":
+                    if ("Start".equals(column) || Integer.valueOf(6).equals(column)) return startText;
+                    if ("End".equals(column) || Integer.valueOf(7).equals(column)) return endText;
+                    return "Planning Session";
+                case "getObject":
+                    return Integer.valueOf(6).equals(column) ? start : end;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+}
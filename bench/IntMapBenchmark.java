@@ -0,0 +1,102 @@
+/**
+ *
+ * @author Arthur J Amende
+ * */
+package Helper;
+
+import Classes.Customer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compares looking up Customers by ID number in an Int Map with the linear scan Directory used before,
+ * and with a Hash Map of boxed keys, at 1K, 100K, and 1M Customers.
+ * <p>
+ *     Customers get random distinct ID numbers and are looked up in a random order that was fixed before
+ *     timing, every lookup finding its Customer. The scan stops at the first match as Directory did, so it
+ *     reads half the list on average. Each case is timed after warm up passes and reported in nanoseconds per lookup.
+ *     Kept in bench/, out of the application sources. Compile it with the application classes on the
+ *     class path and run with java Helper.IntMapBenchmark [sizes...], no database is needed.
+ * </p>
+ * */
+public final class IntMapBenchmark {
+    // Scanned Customers per measurement, bounds the time of the linear scan at large sizes
+    private static final long scanBudget = 200_000_000L;
+
+    private IntMapBenchmark(){
+    }
+
+    /**
+     * @param args optional numbers of Customers, 1000 100000 1000000 by default
+     * */
+    public static void main(String[] args){
+        int[] sizes = args.length > 0 ? new int[args.length] : new int[]{1_000, 100_000, 1_000_000};
+        for (int i = 0; i < args.length; ++i){
+            sizes[i] = Integer.parseInt(args[i]);
+        }
+
+        System.out.printf("%10s %14s %14s %14s%n", "customers", "scan ns", "HashMap ns", "IntMap ns");
+        for (int size : sizes){
+            Random random = new Random(size);
+            List<Customer> customers = new ArrayList<>(size);
+            IntMap<Customer> byID = new IntMap<>(size);
+            Map<Integer, Customer> boxed = new HashMap<>();
+            while (customers.size() < size) {
+                int id = random.nextInt(Integer.MAX_VALUE);
+                if (byID.containsKey(id)) continue;
+                Customer customer = new Customer(id, "Customer " + id, "Address", "Postal Code", "Phone", 1);
+                customers.add(customer);
+                byID.put(id, customer);
+                boxed.put(id, customer);
+            }
+
+            int[] lookups = new int[1 << 20];
+            for (int i = 0; i < lookups.length; ++i){
+                lookups[i] = customers.get(random.nextInt(size)).getId();
+            }
+            int scanLookups = (int) Math.max(100, Math.min(lookups.length, scanBudget / size));
+
+            double scan = 0;
+            double hashMap = 0;
+            double intMap = 0;
+            for (int pass = 0; pass < 4; ++pass){
+                scan = time(lookups, scanLookups, id -> scan(customers, id));
+                hashMap = time(lookups, lookups.length, boxed::get);
+                intMap = time(lookups, lookups.length, byID::get);
+            }
+            System.out.printf("%10d %14.1f %14.1f %14.1f%n", size, scan, hashMap, intMap);
+        }
+    }
+
+    private interface Lookup {
+        Customer find(int id);
+    }
+
+    /**
+     * @return nanoseconds per lookup of the first count ID numbers in lookups
+     * */
+    private static double time(int[] lookups, int count, Lookup lookup){
+        long found = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < count; ++i){
+            if (lookup.find(lookups[i]) != null) ++found;
+        }
+        long nanos = System.nanoTime() - start;
+        if (found != count) throw new IllegalStateException("Found " + found + " of " + count + " Customers.");
+        return nanos / (double) count;
+    }
+
+    /**
+     * The lookup Directory.getCustomer made before the Int Map index.
+     * */
+    private static Customer scan(List<Customer> customers, int id){
+        for (Customer customer : customers){
+            if (customer.getId() == id) return customer;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,133 @@
+/**
+ *
+ * @author Arthur J Amende
+ * */
+package Classes;
+
+import Helper.GroupBy;
+import Helper.GroupKey;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+/**
+ * Times the Report One and Report Three Group Bys over a large synthetic history, sequential and in parallel.
+ * <p>
+ *     Appointments spread over five years, six types, and the given number of Customers are grouped once in
+ *     one pass and then on fork/join pools of 1 to N threads, N the number of processors unless given.
+ *     Every parallel result is checked to match the sequential one group for group and in the same order.
+ *     The smallest chunk is then varied on the largest pool, which shows the cost of splitting and merging
+ *     that GroupBy's minimum chunk size keeps small. Each time is the best of several runs after a warm up.
+ *     Kept in bench/, out of the application sources, in package Classes to reach the report Group Bys.
+ *     Compile it with the application classes on the class path and run with
+ *     java Classes.ReportsBenchmark [appointments] [customers] [threads...], no database is needed.
+ * </p>
+ * */
+public final class ReportsBenchmark {
+    private static final String[] types = {"Planning Session", "De-Briefing", "Review", "Check-in", "Training", "Sales"};
+    private static final int[] chunkSizes = {1_000, 2_500, 10_000, 40_000, 160_000};
+    private static final int runs = 5;
+
+    private ReportsBenchmark(){
+    }
+
+    /**
+     * @param args optional number of Appointments, 2000000 by default, of Customers, 10000 by default, and pool sizes
+     * */
+    public static void main(String[] args){
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int customers = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        int processors = Runtime.getRuntime().availableProcessors();
+        List<Integer> threads = new ArrayList<>();
+        for (int i = 2; i < args.length; ++i){
+            threads.add(Integer.parseInt(args[i]));
+        }
+        if (threads.isEmpty()) {
+            for (int i = 1; i <= processors; i *= 2){
+                threads.add(i);
+            }
+            if (threads.get(threads.size() - 1) != processors) threads.add(processors);
+        }
+
+        List<Appointment> appointments = history(size, customers);
+        System.out.println(size + " Appointments, " + customers + " Customers, " + processors + " processors");
+
+        GroupBy<Appointment, GroupKey> reportOne = Reports.groupByMonthAndType().addAll(appointments);
+        GroupBy<Appointment, Integer> reportThree = Reports.groupByCustomer().addAll(appointments);
+        double sequentialOne = best(() -> Reports.groupByMonthAndType().addAll(appointments));
+        double sequentialThree = best(() -> Reports.groupByCustomer().addAll(appointments));
+        System.out.printf("%-12s %14s %14s%n", "threads", "Report One ms", "Report Three ms");
+        System.out.printf("%-12s %14.1f %14.1f%n", "sequential", sequentialOne, sequentialThree);
+
+        for (int poolSize : threads){
+            ForkJoinPool pool = new ForkJoinPool(poolSize);
+            check(reportOne, GroupBy.parallel(appointments, Reports::groupByMonthAndType, pool));
+            check(reportThree, GroupBy.parallel(appointments, Reports::groupByCustomer, pool));
+            double one = best(() -> GroupBy.parallel(appointments, Reports::groupByMonthAndType, pool));
+            double three = best(() -> GroupBy.parallel(appointments, Reports::groupByCustomer, pool));
+            System.out.printf("%-12d %14.1f %14.1f%n", poolSize, one, three);
+            pool.shutdown();
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads.get(threads.size() - 1));
+        System.out.printf("%-12s %14s %14s   on %d threads%n", "min chunk", "Report One ms", "Report Three ms", pool.getParallelism());
+        for (int chunkSize : chunkSizes){
+            double one = best(() -> GroupBy.parallel(appointments, Reports::groupByMonthAndType, pool, chunkSize));
+            double three = best(() -> GroupBy.parallel(appointments, Reports::groupByCustomer, pool, chunkSize));
+            System.out.printf("%-12d %14.1f %14.1f%n", chunkSize, one, three);
+        }
+        pool.shutdown();
+    }
+
+    /**
+     * @return milliseconds of the fastest of several runs, after one warm up run
+     * */
+    private static double best(Supplier<GroupBy<Appointment, ?>> work){
+        long fastest = Long.MAX_VALUE;
+        int groups = work.get().size();
+        for (int run = 0; run < runs; ++run){
+            long start = System.nanoTime();
+            groups += work.get().size();
+            fastest = Math.min(fastest, System.nanoTime() - start);
+        }
+        if (groups < 0) System.out.println(groups);
+        return fastest / 1e6;
+    }
+
+    /**
+     * Fails unless both Group Bys hold the same groups with the same totals in the same order.
+     * */
+    private static <K> void check(GroupBy<Appointment, K> expected, GroupBy<Appointment, K> actual){
+        List<Map.Entry<K, long[]>> expectedGroups = new ArrayList<>(expected.getGroups().entrySet());
+        List<Map.Entry<K, long[]>> actualGroups = new ArrayList<>(actual.getGroups().entrySet());
+        boolean same = expectedGroups.size() == actualGroups.size();
+        for (int i = 0; same && i < expectedGroups.size(); ++i){
+            same = expectedGroups.get(i).getKey().equals(actualGroups.get(i).getKey())
+                    && Arrays.equals(expectedGroups.get(i).getValue(), actualGroups.get(i).getValue());
+        }
+        if (!same) throw new IllegalStateException("Parallel groups differ from sequential groups.");
+    }
+
+    /**
+     * @return Appointments of 15 to 120 minutes starting on the quarter hour over five years, ordered by Start
+     * */
+    private static List<Appointment> history(int size, int customers){
+        Random random = new Random(size);
+        LocalDateTime origin = LocalDateTime.of(2018, 1, 1, 8, 0);
+        long quarters = 5L * 365 * 24 * 4;
+        List<Appointment> appointments = new ArrayList<>(size);
+        for (int i = 0; i < size; ++i){
+            LocalDateTime start = origin.plusMinutes(15 * (quarters * i / size));
+            LocalDateTime end = start.plusMinutes(15L * (1 + random.nextInt(8)));
+            appointments.add(new Appointment(i + 1, "Title", "Description", "Location", types[random.nextInt(types.length)],
+                    start, end, 1 + random.nextInt(customers), 1 + random.nextInt(10), 1 + random.nextInt(3)));
+        }
+        return appointments;
+    }
+}
@@ -0,0 +1,11 @@
+-- Indexes supporting the appointment queries in Helper.JDBC.
+-- Run once against client_schedule. Columns and data are unchanged.
+
+-- Loading and exporting all appointments: Start > ? OR (Start = ? AND Appointment_ID > ?),
+-- ordered by Start, Appointment_ID. InnoDB appends the Primary Key to secondary indexes,
+-- so this index is the (Start, Appointment_ID) keyset.
+CREATE INDEX idx_appointments_start ON appointments (Start);
+
+-- Change sync: MAX(Last_Update) and Last_Update >= ? on both tables.
+CREATE INDEX idx_customers_last_update ON customers (Last_Update);
+CREATE INDEX idx_appointments_last_update ON appointments (Last_Update);